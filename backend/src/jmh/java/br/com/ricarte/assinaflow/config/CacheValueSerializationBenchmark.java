@@ -0,0 +1,79 @@
+package br.com.ricarte.assinaflow.config;
+
+import br.com.ricarte.assinaflow.subscription.ActiveSubscriptionEntry;
+import br.com.ricarte.assinaflow.subscription.ActiveSubscriptionSerializer;
+import br.com.ricarte.assinaflow.subscription.Plan;
+import br.com.ricarte.assinaflow.subscription.SubscriptionStatus;
+import br.com.ricarte.assinaflow.subscription.dto.SubscriptionResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * activeSubscription cache value: typed JSON (the default Redis codec) vs the binary codec.
+ * Encoded sizes of this entry are listed in the README (Benchmarks).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CacheValueSerializationBenchmark {
+
+    private RedisSerializer<Object> json;
+    private RedisSerializer<Object> binary;
+
+    private ActiveSubscriptionEntry entry;
+    private byte[] jsonBytes;
+    private byte[] binaryBytes;
+
+    @Setup
+    public void setup() {
+        json = CacheConfig.jsonValueSerializer(Jackson2ObjectMapperBuilder.json().build());
+        binary = new ActiveSubscriptionSerializer();
+
+        SubscriptionResponse r = new SubscriptionResponse();
+        r.setId(UUID.randomUUID());
+        r.setUsuarioId(UUID.randomUUID());
+        r.setPlano(Plan.PREMIUM);
+        r.setDataInicio(LocalDate.parse("2025-03-10"));
+        r.setDataExpiracao(LocalDate.parse("2025-04-10"));
+        r.setStatus(SubscriptionStatus.ATIVA);
+        r.setAutoRenew(true);
+        r.setRenewalFailures(1);
+        r.setNextRenewalAttemptAt(Instant.parse("2025-04-10T00:15:00.123456Z"));
+        entry = new ActiveSubscriptionEntry(r, System.currentTimeMillis());
+
+        jsonBytes = json.serialize(entry);
+        binaryBytes = binary.serialize(entry);
+    }
+
+    @Benchmark
+    public byte[] jsonSerialize() {
+        return json.serialize(entry);
+    }
+
+    @Benchmark
+    public Object jsonDeserialize() {
+        return json.deserialize(jsonBytes);
+    }
+
+    @Benchmark
+    public byte[] binarySerialize() {
+        return binary.serialize(entry);
+    }
+
+    @Benchmark
+    public Object binaryDeserialize() {
+        return binary.deserialize(binaryBytes);
+    }
+}
@@ -0,0 +1,76 @@
+package br.com.ricarte.assinaflow.outbox;
+
+import br.com.ricarte.assinaflow.subscription.PaymentChargeRequested;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.amqp.core.Message;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PaymentChargeRequested along the outbox: JSON written at enqueue, the AMQP message built
+ * from the stored payload at publish, and the JSON read back by the consumer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PaymentChargePayloadBenchmark {
+
+    private ObjectMapper objectMapper;
+
+    private PaymentChargeRequested request;
+    private OutboxEventEntity event;
+    private byte[] body;
+
+    @Setup
+    public void setup() throws JsonProcessingException {
+        // Same settings Spring Boot applies to the application ObjectMapper.
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        request = new PaymentChargeRequested(
+                null,
+                UUID.randomUUID(),
+                UUID.randomUUID(),
+                LocalDate.parse("2025-04-10"),
+                1,
+                3990,
+                Instant.parse("2025-04-10T00:05:00.123456Z")
+        );
+
+        event = new OutboxEventEntity();
+        event.setId(UUID.randomUUID());
+        event.setEventType(OutboxEventType.PAYMENT_CHARGE_REQUESTED.name());
+        event.setPayload(objectMapper.writeValueAsString(request));
+        body = toMessage().getBody();
+    }
+
+    @Benchmark
+    public String serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(request);
+    }
+
+    @Benchmark
+    public Message toMessage() {
+        return OutboxPublisher.toMessage(event);
+    }
+
+    @Benchmark
+    public PaymentChargeRequested deserialize() throws IOException {
+        return objectMapper.readValue(body, PaymentChargeRequested.class);
+    }
+}
@@ -0,0 +1,86 @@
+package br.com.ricarte.assinaflow.subscription;
+
+import br.com.ricarte.assinaflow.subscription.dto.SubscriptionResponse;
+import br.com.ricarte.assinaflow.user.PaymentBehavior;
+import br.com.ricarte.assinaflow.user.PaymentProfileEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU-only pieces of a renewal: entity to response mapping, the payment decision and the
+ * outbox idempotency key. Run with -prof gc to see the allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BillingHotPathBenchmark {
+
+    private SubscriptionEntity subscription;
+
+    private PaymentProfileEntity approve;
+    private PaymentProfileEntity decline;
+    private PaymentProfileEntity failNextN;
+
+    @Setup
+    public void setup() {
+        subscription = new SubscriptionEntity();
+        subscription.setId(UUID.randomUUID());
+        subscription.setUserId(UUID.randomUUID());
+        subscription.setPlan(Plan.PREMIUM);
+        subscription.setStartDate(LocalDate.parse("2025-03-10"));
+        subscription.setExpirationDate(LocalDate.parse("2025-04-10"));
+        subscription.setStatus(SubscriptionStatus.ATIVA);
+        subscription.setAutoRenew(true);
+        subscription.setRenewalFailures(1);
+        subscription.setNextRenewalAttemptAt(Instant.parse("2025-04-10T00:15:00Z"));
+
+        approve = profile(PaymentBehavior.ALWAYS_APPROVE);
+        decline = profile(PaymentBehavior.ALWAYS_DECLINE);
+        failNextN = profile(PaymentBehavior.FAIL_NEXT_N);
+    }
+
+    private static PaymentProfileEntity profile(PaymentBehavior behavior) {
+        PaymentProfileEntity p = new PaymentProfileEntity();
+        p.setUserId(UUID.randomUUID());
+        p.setBehavior(behavior);
+        return p;
+    }
+
+    @Benchmark
+    public SubscriptionResponse toResponse() {
+        return SubscriptionService.toResponse(subscription);
+    }
+
+    @Benchmark
+    public PaymentResult chargeApprove() {
+        return PaymentService.decide(approve);
+    }
+
+    @Benchmark
+    public PaymentResult chargeDecline() {
+        return PaymentService.decide(decline);
+    }
+
+    /** Declines with the remaining count in the message, the allocating branch. */
+    @Benchmark
+    public PaymentResult chargeFailNextN() {
+        failNextN.setFailNextN(3);
+        return PaymentService.decide(failNextN);
+    }
+
+    @Benchmark
+    public String idempotencyKey() {
+        return RenewalService.idempotencyKey(
+                subscription.getId(), subscription.getExpirationDate(), subscription.getRenewalFailures() + 1);
+    }
+}
@@ -0,0 +1,138 @@
+package br.com.ricarte.assinaflow.subscription;
+
+import br.com.ricarte.assinaflow.AssinaFlowApplication;
+import br.com.ricarte.assinaflow.subscription.dto.SubscriptionResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read paths of SubscriptionRepository: managed entities mapped with toResponse vs the
+ * constructor projections. Runs against BENCH_DB_URL (same credentials as the app) when set,
+ * otherwise against a throwaway Testcontainers Postgres.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SubscriptionReadBenchmark {
+
+    private static final int HISTORY_SIZE = 50;
+    private static final EnumSet<SubscriptionStatus> ACTIVE =
+            EnumSet.of(SubscriptionStatus.ATIVA, SubscriptionStatus.CANCELAMENTO_AGENDADO);
+
+    private PostgreSQLContainer<?> postgres;
+    private ConfigurableApplicationContext context;
+    private SubscriptionRepository repository;
+
+    private UUID userId;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String url = System.getenv("BENCH_DB_URL");
+        String username = "subscriptions";
+        String password = "subscriptions";
+        if (url == null || url.isBlank()) {
+            postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+                    .withDatabaseName("subscriptions")
+                    .withUsername(username)
+                    .withPassword(password);
+            postgres.start();
+            url = postgres.getJdbcUrl();
+        }
+
+        context = new SpringApplicationBuilder(AssinaFlowApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=" + url,
+                        "--spring.datasource.username=" + username,
+                        "--spring.datasource.password=" + password,
+                        "--app.scheduler.enabled=false",
+                        "--app.payments.async.enabled=false",
+                        "--spring.cache.type=simple",
+                        "--logging.level.root=WARN");
+        repository = context.getBean(SubscriptionRepository.class);
+        seed(context.getBean(JdbcTemplate.class));
+    }
+
+    /** One user with HISTORY_SIZE subscriptions, the newest one active. */
+    private void seed(JdbcTemplate jdbc) {
+        userId = UUID.randomUUID();
+        Instant now = Instant.now();
+        jdbc.update("INSERT INTO users (id, email, nome, created_at, updated_at) VALUES (?, ?, ?, ?, ?)",
+                userId, "bench-" + userId + "@example.com", "Bench", Timestamp.from(now), Timestamp.from(now));
+
+        List<Object[]> rows = new ArrayList<>();
+        LocalDate start = LocalDate.now().minusMonths(HISTORY_SIZE);
+        for (int i = 0; i < HISTORY_SIZE; i++) {
+            boolean last = i == HISTORY_SIZE - 1;
+            Timestamp createdAt = Timestamp.from(now.minusSeconds((HISTORY_SIZE - i) * 60L));
+            rows.add(new Object[]{
+                    UUID.randomUUID(), userId, Plan.PREMIUM.name(),
+                    Date.valueOf(start.plusMonths(i)), Date.valueOf(start.plusMonths(i + 1)),
+                    (last ? SubscriptionStatus.ATIVA : SubscriptionStatus.CANCELADA).name(), last,
+                    createdAt, createdAt
+            });
+        }
+        jdbc.batchUpdate("""
+                INSERT INTO subscriptions (id, user_id, plan, start_date, expiration_date, status, auto_renew,
+                                           renewal_failures, version, created_at, updated_at)
+                VALUES (?, ?, ?, ?, ?, ?, ?, 0, 0, ?, ?)
+                """, rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+        if (postgres != null) {
+            postgres.stop();
+        }
+    }
+
+    @Benchmark
+    public SubscriptionResponse activeEntity() {
+        return repository.findFirstByUserIdAndStatusIn(userId, ACTIVE)
+                .map(SubscriptionService::toResponse)
+                .orElseThrow();
+    }
+
+    @Benchmark
+    public SubscriptionResponse activeProjection() {
+        return repository.findActiveResponse(userId, ACTIVE).orElseThrow();
+    }
+
+    @Benchmark
+    public List<SubscriptionResponse> historyEntity() {
+        return repository.findByUserIdOrderByCreatedAtDesc(userId)
+                .stream()
+                .map(SubscriptionService::toResponse)
+                .toList();
+    }
+
+    @Benchmark
+    public List<SubscriptionResponse> historyProjection() {
+        return repository.findHistoryResponses(userId);
+    }
+}
@@ -0,0 +1,51 @@
+package br.com.ricarte.assinaflow.admin;
+
+import br.com.ricarte.assinaflow.admin.dto.BulkImportReport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Migration of an existing customer base. The body is read as a stream, so files with
+ * millions of lines are fine; the response reports what was imported and what was rejected.
+ */
+@RestController
+@RequestMapping("/api/v1/admin/imports")
+public class BulkImportController {
+
+    static final String NDJSON = "application/x-ndjson";
+    static final String CSV = "text/csv";
+
+    private final BulkImportService bulkImportService;
+    private final ObjectMapper objectMapper;
+
+    public BulkImportController(BulkImportService bulkImportService, ObjectMapper objectMapper) {
+        this.bulkImportService = bulkImportService;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostMapping(consumes = NDJSON)
+    public BulkImportReport importNdjson(InputStream body) throws IOException {
+        try (BufferedReader reader = reader(body)) {
+            return bulkImportService.importRows(BulkImportReader.ndjson(reader, objectMapper));
+        }
+    }
+
+    @PostMapping(consumes = CSV)
+    public BulkImportReport importCsv(InputStream body) throws IOException {
+        try (BufferedReader reader = reader(body)) {
+            return bulkImportService.importRows(BulkImportReader.csv(reader));
+        }
+    }
+
+    private static BufferedReader reader(InputStream body) {
+        return new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8), 64 * 1024);
+    }
+}
@@ -0,0 +1,179 @@
+package br.com.ricarte.assinaflow.admin;
+
+import br.com.ricarte.assinaflow.subscription.Plan;
+import br.com.ricarte.assinaflow.user.PaymentBehavior;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * Lazily parses an import body, one line at a time, so the file is never held in memory.
+ *
+ * Both formats carry the fields email, nome, paymentBehavior, failNextN, plano and dataInicio;
+ * only email and nome are required. CSV needs a header line naming the columns (any order)
+ * and supports double-quoted fields without embedded line breaks.
+ */
+final class BulkImportReader implements Iterator<BulkImportRow> {
+
+    private final BufferedReader reader;
+    private final LineParser parser;
+
+    private long lineNumber;
+    private BulkImportRow next;
+
+    private BulkImportReader(BufferedReader reader, long lineNumber, LineParser parser) {
+        this.reader = reader;
+        this.lineNumber = lineNumber;
+        this.parser = parser;
+    }
+
+    static Iterator<BulkImportRow> ndjson(BufferedReader reader, ObjectMapper objectMapper) {
+        return new BulkImportReader(reader, 0, (line, text) -> {
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(text);
+            } catch (JsonProcessingException e) {
+                return BulkImportRow.invalid(line, null, "JSON invalido.");
+            }
+            if (!node.isObject()) {
+                return BulkImportRow.invalid(line, null, "JSON invalido.");
+            }
+            return toRow(line, field -> {
+                JsonNode v = node.get(field);
+                return v == null || v.isNull() ? null : v.asText();
+            });
+        });
+    }
+
+    static Iterator<BulkImportRow> csv(BufferedReader reader) {
+        String header = readLine(reader);
+        if (header == null) {
+            return new BulkImportReader(reader, 0, (line, text) -> null);
+        }
+
+        List<String> columns = splitCsv(header.strip());
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            index.put(columns.get(i).strip(), i);
+        }
+
+        return new BulkImportReader(reader, 1, (line, text) -> {
+            List<String> values = splitCsv(text);
+            return toRow(line, field -> {
+                Integer i = index.get(field);
+                return i == null || i >= values.size() ? null : values.get(i);
+            });
+        });
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null) {
+            String text = readLine(reader);
+            if (text == null) {
+                return false;
+            }
+            lineNumber++;
+            if (!text.isBlank()) {
+                next = parser.parse(lineNumber, text);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public BulkImportRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        BulkImportRow row = next;
+        next = null;
+        return row;
+    }
+
+    private static BulkImportRow toRow(long line, Function<String, String> field) {
+        String email = trimToNull(field.apply("email"));
+        try {
+            String behavior = trimToNull(field.apply("paymentBehavior"));
+            String failNextN = trimToNull(field.apply("failNextN"));
+            String plano = trimToNull(field.apply("plano"));
+            String dataInicio = trimToNull(field.apply("dataInicio"));
+
+            return new BulkImportRow(
+                    line,
+                    email,
+                    trimToNull(field.apply("nome")),
+                    behavior == null ? PaymentBehavior.ALWAYS_APPROVE : PaymentBehavior.valueOf(behavior),
+                    failNextN == null ? 0 : Integer.parseInt(failNextN),
+                    plano == null ? null : Plan.valueOf(plano),
+                    dataInicio == null ? null : LocalDate.parse(dataInicio)
+            );
+        } catch (RuntimeException e) {
+            // IllegalArgumentException (enums, numbers) or DateTimeParseException
+            return BulkImportRow.invalid(line, email, "Valor invalido: " + e.getMessage());
+        }
+    }
+
+    /** Splits one CSV record: comma separated, fields optionally double-quoted ("" escapes a quote). */
+    static List<String> splitCsv(String text) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private static String trimToNull(String v) {
+        if (v == null) {
+            return null;
+        }
+        String t = v.strip();
+        return t.isEmpty() ? null : t;
+    }
+
+    private static String readLine(BufferedReader reader) {
+        try {
+            return reader.readLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface LineParser {
+        BulkImportRow parse(long line, String text);
+    }
+}
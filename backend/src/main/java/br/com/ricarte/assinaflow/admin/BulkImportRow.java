@@ -0,0 +1,33 @@
+package br.com.ricarte.assinaflow.admin;
+
+import br.com.ricarte.assinaflow.subscription.Plan;
+import br.com.ricarte.assinaflow.user.PaymentBehavior;
+
+import java.time.LocalDate;
+
+/**
+ * One customer of a bulk import: the user, its payment profile and, when plano is set, an
+ * ATIVA subscription starting at dataInicio (today when null).
+ *
+ * error is set when the source line could not be parsed; such rows are only reported.
+ */
+public record BulkImportRow(
+        long line,
+        String email,
+        String nome,
+        PaymentBehavior paymentBehavior,
+        int failNextN,
+        Plan plano,
+        LocalDate dataInicio,
+        String error
+) {
+
+    public BulkImportRow(long line, String email, String nome, PaymentBehavior paymentBehavior, int failNextN,
+                         Plan plano, LocalDate dataInicio) {
+        this(line, email, nome, paymentBehavior, failNextN, plano, dataInicio, null);
+    }
+
+    static BulkImportRow invalid(long line, String email, String error) {
+        return new BulkImportRow(line, email, null, null, 0, null, null, error);
+    }
+}
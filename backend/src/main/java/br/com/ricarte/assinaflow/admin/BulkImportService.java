@@ -0,0 +1,274 @@
+package br.com.ricarte.assinaflow.admin;
+
+import br.com.ricarte.assinaflow.admin.dto.BulkImportRejection;
+import br.com.ricarte.assinaflow.admin.dto.BulkImportReport;
+import br.com.ricarte.assinaflow.common.time.TimeProvider;
+import br.com.ricarte.assinaflow.subscription.RenewalQueue;
+import br.com.ricarte.assinaflow.subscription.SubscriptionStatus;
+import br.com.ricarte.assinaflow.user.dto.CreateUserRequest;
+import br.com.ricarte.assinaflow.user.dto.PaymentProfileRequest;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Bulk customer import at COPY speed: rows are validated with the same rules as
+ * POST /api/v1/users, checked for existing emails with one query per chunk and written to
+ * users, payment_profiles, subscriptions and renewal_queue with PostgreSQL COPY.
+ *
+ * Each chunk of app.import.chunkSize rows commits on its own, so a large import makes steady
+ * progress and a failure only loses the chunk in flight. Email uniqueness is case-insensitive,
+ * like UserService.create; duplicates of an earlier chunk are caught by the database check.
+ */
+@Service
+public class BulkImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkImportService.class);
+
+    static final String INVALID_ROW = "INVALID_ROW";
+    static final String DUPLICATE_IN_FILE = "DUPLICATE_IN_FILE";
+    static final String EMAIL_EXISTS = "USER_EMAIL_ALREADY_EXISTS";
+    static final String CHUNK_FAILED = "CHUNK_FAILED";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final TransactionTemplate tx;
+    private final Validator validator;
+    private final TimeProvider timeProvider;
+    private final RenewalQueue renewalQueue;
+
+    private final int chunkSize;
+    private final int maxReportedRejections;
+
+    public BulkImportService(
+            JdbcTemplate jdbcTemplate,
+            DataSource dataSource,
+            PlatformTransactionManager transactionManager,
+            Validator validator,
+            TimeProvider timeProvider,
+            RenewalQueue renewalQueue,
+            @Value("${app.import.chunkSize:5000}") int chunkSize,
+            @Value("${app.import.maxReportedRejections:1000}") int maxReportedRejections
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.timeProvider = timeProvider;
+        this.renewalQueue = renewalQueue;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxReportedRejections = Math.max(0, maxReportedRejections);
+    }
+
+    public BulkImportReport importRows(Iterator<BulkImportRow> rows) {
+        long started = System.nanoTime();
+        BulkImportReport report = new BulkImportReport();
+        LocalDate today = timeProvider.todayUtc();
+
+        List<BulkImportRow> chunk = new ArrayList<>(chunkSize);
+        while (rows.hasNext()) {
+            BulkImportRow row = rows.next();
+            report.setReceived(report.getReceived() + 1);
+
+            String invalid = row.error() != null ? row.error() : validate(row);
+            if (invalid != null) {
+                reject(report, row, INVALID_ROW, invalid);
+                continue;
+            }
+
+            chunk.add(row);
+            if (chunk.size() == chunkSize) {
+                importChunk(chunk, today, report);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, today, report);
+        }
+
+        report.setElapsedMs((System.nanoTime() - started) / 1_000_000);
+        log.info("bulk import finished received={} users={} subscriptions={} rejected={} elapsedMs={}",
+                report.getReceived(), report.getImportedUsers(), report.getImportedSubscriptions(),
+                report.getRejected(), report.getElapsedMs());
+        return report;
+    }
+
+    private String validate(BulkImportRow row) {
+        PaymentProfileRequest profile = new PaymentProfileRequest();
+        profile.setBehavior(row.paymentBehavior());
+        profile.setFailNextN(row.failNextN());
+
+        CreateUserRequest req = new CreateUserRequest();
+        req.setEmail(row.email());
+        req.setNome(row.nome());
+        req.setPaymentProfile(profile);
+
+        Set<ConstraintViolation<CreateUserRequest>> violations = validator.validate(req);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        ConstraintViolation<CreateUserRequest> v = violations.iterator().next();
+        return v.getPropertyPath() + ": " + v.getMessage();
+    }
+
+    private void importChunk(List<BulkImportRow> chunk, LocalDate today, BulkImportReport report) {
+        // First occurrence of an email wins inside the chunk.
+        Map<String, BulkImportRow> unique = new LinkedHashMap<>();
+        for (BulkImportRow row : chunk) {
+            if (unique.putIfAbsent(row.email().toUpperCase(Locale.ROOT), row) != null) {
+                reject(report, row, DUPLICATE_IN_FILE, "Email duplicado no arquivo.");
+            }
+        }
+        List<BulkImportRow> candidates = new ArrayList<>(unique.values());
+
+        // One retry: a user created through the API between the check and the COPY fails
+        // the chunk on uq_users_email; the second pass sees it in the existence check.
+        for (int attempt = 1; ; attempt++) {
+            try {
+                ChunkResult result = tx.execute(status -> copyChunk(candidates, today));
+                for (BulkImportRow row : result.existing()) {
+                    reject(report, row, EMAIL_EXISTS, "Email ja cadastrado.");
+                }
+                report.setImportedUsers(report.getImportedUsers() + result.users());
+                report.setImportedSubscriptions(report.getImportedSubscriptions() + result.subscriptions());
+                return;
+            } catch (DuplicateKeyException e) {
+                if (attempt == 2) {
+                    rejectChunk(report, candidates, e);
+                    return;
+                }
+            } catch (DataAccessException | UncheckedIOException e) {
+                rejectChunk(report, candidates, e);
+                return;
+            }
+        }
+    }
+
+    private ChunkResult copyChunk(List<BulkImportRow> rows, LocalDate today) {
+        Set<String> existing = existingEmails(rows);
+
+        StringBuilder users = new StringBuilder();
+        StringBuilder profiles = new StringBuilder();
+        StringBuilder subscriptions = new StringBuilder();
+        StringBuilder renewals = new StringBuilder();
+        List<BulkImportRow> rejected = new ArrayList<>();
+        int userCount = 0;
+        int subscriptionCount = 0;
+
+        for (BulkImportRow row : rows) {
+            if (existing.contains(row.email())) {
+                rejected.add(row);
+                continue;
+            }
+
+            UUID userId = UUID.randomUUID();
+            users.append(userId).append(',').append(quote(row.email())).append(',').append(quote(row.nome())).append('\n');
+            profiles.append(userId).append(',').append(row.paymentBehavior()).append(',').append(row.failNextN()).append('\n');
+            userCount++;
+
+            if (row.plano() != null) {
+                LocalDate start = row.dataInicio() != null ? row.dataInicio() : today;
+                UUID subscriptionId = UUID.randomUUID();
+                subscriptions.append(subscriptionId).append(',')
+                        .append(userId).append(',')
+                        .append(row.plano()).append(',')
+                        .append(start).append(',')
+                        .append(start.plusMonths(1)).append(',')
+                        .append(SubscriptionStatus.ATIVA).append(",true,0\n");
+                renewals.append(renewalQueue.firstDueAt(start.plusMonths(1))).append(',')
+                        .append(subscriptionId).append('\n');
+                subscriptionCount++;
+            }
+        }
+
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        copy(connection, "COPY users (id, email, nome) FROM STDIN WITH (FORMAT csv)", users);
+        copy(connection, "COPY payment_profiles (user_id, behavior, fail_next_n) FROM STDIN WITH (FORMAT csv)", profiles);
+        copy(connection, """
+                COPY subscriptions (id, user_id, plan, start_date, expiration_date, status, auto_renew, renewal_failures)
+                FROM STDIN WITH (FORMAT csv)
+                """, subscriptions);
+        copy(connection, "COPY renewal_queue (due_at, subscription_id) FROM STDIN WITH (FORMAT csv)", renewals);
+
+        return new ChunkResult(userCount, subscriptionCount, rejected);
+    }
+
+    /** Emails of the chunk that already exist, compared with upper() as UserRepository does. */
+    private Set<String> existingEmails(List<BulkImportRow> rows) {
+        String[] emails = rows.stream().map(BulkImportRow::email).toArray(String[]::new);
+        List<String> found = jdbcTemplate.query(con -> {
+            var ps = con.prepareStatement("""
+                    SELECT e.email
+                    FROM unnest(?::text[]) AS e(email)
+                    WHERE EXISTS (SELECT 1 FROM users u WHERE upper(u.email) = upper(e.email))
+                    """);
+            ps.setArray(1, con.createArrayOf("text", emails));
+            return ps;
+        }, (rs, i) -> rs.getString(1));
+        return new HashSet<>(found);
+    }
+
+    private void copy(Connection connection, String sql, CharSequence csv) {
+        if (csv.isEmpty()) {
+            return;
+        }
+        try {
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            copyManager.copyIn(sql, new StringReader(csv.toString()));
+        } catch (SQLException e) {
+            DataAccessException translated = jdbcTemplate.getExceptionTranslator().translate("COPY", sql, e);
+            throw translated != null ? translated : new IllegalStateException(e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String quote(String v) {
+        return '"' + v.replace("\"", "\"\"") + '"';
+    }
+
+    private void rejectChunk(BulkImportReport report, List<BulkImportRow> rows, RuntimeException e) {
+        log.warn("bulk import chunk failed rows={} error={}", rows.size(), e.toString());
+        for (BulkImportRow row : rows) {
+            reject(report, row, CHUNK_FAILED, "Falha ao gravar o lote.");
+        }
+    }
+
+    private void reject(BulkImportReport report, BulkImportRow row, String code, String message) {
+        report.setRejected(report.getRejected() + 1);
+        if (report.getRejections().size() < maxReportedRejections) {
+            report.getRejections().add(new BulkImportRejection(row.line(), row.email(), code, message));
+        }
+    }
+
+    private record ChunkResult(int users, int subscriptions, List<BulkImportRow> existing) {
+    }
+}
@@ -0,0 +1,52 @@
+package br.com.ricarte.assinaflow.admin.dto;
+
+public class BulkImportRejection {
+
+    /** 1-based line of the source body (the CSV header is line 1). */
+    private long line;
+    private String email;
+    private String code;
+    private String message;
+
+    public BulkImportRejection() {
+    }
+
+    public BulkImportRejection(long line, String email, String code, String message) {
+        this.line = line;
+        this.email = email;
+        this.code = code;
+        this.message = message;
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public void setLine(long line) {
+        this.line = line;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
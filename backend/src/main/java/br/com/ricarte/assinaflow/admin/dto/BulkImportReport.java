@@ -0,0 +1,65 @@
+package br.com.ricarte.assinaflow.admin.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BulkImportReport {
+
+    private long received;
+    private long importedUsers;
+    private long importedSubscriptions;
+    private long rejected;
+
+    /** First rejected rows, capped by app.import.maxReportedRejections; rejected has the full count. */
+    private List<BulkImportRejection> rejections = new ArrayList<>();
+
+    private long elapsedMs;
+
+    public long getReceived() {
+        return received;
+    }
+
+    public void setReceived(long received) {
+        this.received = received;
+    }
+
+    public long getImportedUsers() {
+        return importedUsers;
+    }
+
+    public void setImportedUsers(long importedUsers) {
+        this.importedUsers = importedUsers;
+    }
+
+    public long getImportedSubscriptions() {
+        return importedSubscriptions;
+    }
+
+    public void setImportedSubscriptions(long importedSubscriptions) {
+        this.importedSubscriptions = importedSubscriptions;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public List<BulkImportRejection> getRejections() {
+        return rejections;
+    }
+
+    public void setRejections(List<BulkImportRejection> rejections) {
+        this.rejections = rejections;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    public void setElapsedMs(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+    }
+}
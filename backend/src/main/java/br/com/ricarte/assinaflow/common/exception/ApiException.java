@@ -13,6 +13,16 @@ public abstract class ApiException extends RuntimeException {
         this.status = status;
     }
 
+    /**
+     * For expected outcomes that are mapped straight to a response and never logged with a
+     * trace: skips filling in the stack trace.
+     */
+    protected ApiException(String code, HttpStatus status, String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+        this.code = code;
+        this.status = status;
+    }
+
     public String getCode() {
         return code;
     }
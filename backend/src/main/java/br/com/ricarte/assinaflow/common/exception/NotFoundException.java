@@ -2,8 +2,12 @@ package br.com.ricarte.assinaflow.common.exception;
 
 import org.springframework.http.HttpStatus;
 
+/**
+ * Thrown on hot read paths (e.g. users polling without an active subscription), so it is
+ * created without a stack trace.
+ */
 public class NotFoundException extends ApiException {
     public NotFoundException(String code, String message) {
-        super(code, HttpStatus.NOT_FOUND, message);
+        super(code, HttpStatus.NOT_FOUND, message, false);
     }
 }
@@ -1,9 +1,112 @@
 package br.com.ricarte.assinaflow.config;
 
+import br.com.ricarte.assinaflow.subscription.ActiveSubscriptionSerializer;
+import br.com.ricarte.assinaflow.subscription.SubscriptionCache;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.autoconfigure.cache.RedisCacheManagerBuilderCustomizer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+
+import java.time.Duration;
 
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties(CacheProperties.class)
 public class CacheConfig {
+
+    /**
+     * Default Redis value format shared by Boot's RedisCacheManager and the near cache: JSON
+     * through the application ObjectMapper (java.time support) with the concrete class recorded,
+     * so cached DTOs do not need to be Serializable.
+     */
+    @Bean
+    public RedisCacheConfiguration redisCacheConfiguration(CacheProperties cacheProperties, ObjectMapper objectMapper) {
+        RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(
+                        jsonValueSerializer(objectMapper)))
+                .disableCachingNullValues();
+
+        CacheProperties.Redis redis = cacheProperties.getRedis();
+        if (redis.getTimeToLive() != null) {
+            config = config.entryTtl(redis.getTimeToLive());
+        }
+        if (redis.getKeyPrefix() != null) {
+            config = config.prefixCacheNameWith(redis.getKeyPrefix());
+        }
+        if (!redis.isUseKeyPrefix()) {
+            config = config.disableKeyPrefix();
+        }
+        return config;
+    }
+
+    /**
+     * activeSubscription is the hot read path: same TTL and key prefix as the defaults, but
+     * values use the compact binary codec instead of JSON.
+     */
+    @Bean
+    public RedisCacheManagerBuilderCustomizer activeSubscriptionCacheCustomizer(RedisCacheConfiguration redisCacheConfiguration) {
+        RedisCacheConfiguration active = redisCacheConfiguration.serializeValuesWith(
+                RedisSerializationContext.SerializationPair.fromSerializer(new ActiveSubscriptionSerializer()));
+        return builder -> builder.withCacheConfiguration(SubscriptionCache.ACTIVE_CACHE, active);
+    }
+
+    static GenericJackson2JsonRedisSerializer jsonValueSerializer(ObjectMapper objectMapper) {
+        ObjectMapper mapper = objectMapper.copy();
+        mapper.activateDefaultTyping(
+                BasicPolymorphicTypeValidator.builder().allowIfSubType("br.com.ricarte.assinaflow.").build(),
+                ObjectMapper.DefaultTyping.NON_FINAL,
+                JsonTypeInfo.As.PROPERTY
+        );
+        return new GenericJackson2JsonRedisSerializer(mapper);
+    }
+
+    /**
+     * Caffeine L1 per node in front of Redis (L2). Replaces Boot's cache manager when enabled.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.cache.near.enabled", havingValue = "true")
+    public TwoLevelCacheManager cacheManager(
+            RedisConnectionFactory connectionFactory,
+            RedisCacheConfiguration redisCacheConfiguration,
+            ObjectProvider<RedisCacheManagerBuilderCustomizer> customizers,
+            RedisTemplate<Object, Object> redisTemplate,
+            @Value("${app.cache.near.maxSize:10000}") long maxSize,
+            @Value("${app.cache.near.ttlMs:10000}") long ttlMs,
+            @Value("${app.cache.near.invalidationChannel:assinaflow:cache:invalidate}") String channel
+    ) {
+        RedisCacheManager.RedisCacheManagerBuilder builder = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(redisCacheConfiguration);
+        customizers.orderedStream().forEach(c -> c.customize(builder));
+        RedisCacheManager l2 = builder.build();
+        return new TwoLevelCacheManager(l2, redisTemplate, channel, Math.max(1, maxSize), Duration.ofMillis(Math.max(1, ttlMs)));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.cache.near.enabled", havingValue = "true")
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(
+            RedisConnectionFactory connectionFactory,
+            TwoLevelCacheManager cacheManager,
+            @Value("${app.cache.near.invalidationChannel:assinaflow:cache:invalidate}") String channel
+    ) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(channel));
+        return container;
+    }
 }
@@ -0,0 +1,86 @@
+package br.com.ricarte.assinaflow.config;
+
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.util.ByteUtils;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Multi-key reads over Spring caches, which only offer single-key get.
+ *
+ * Redis caches (plain, or as the L2 of the near cache) are read with one MGET using the cache's
+ * own key prefix and serializers. Keys are converted with toString, which is what RedisCache
+ * does for UUID and String keys. Other caches fall back to one get per key.
+ */
+@Component
+public class CacheMultiGet {
+
+    private final RedisConnectionFactory connectionFactory;
+
+    public CacheMultiGet(RedisConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    /**
+     * @return the cached values by key; keys without a value are left out
+     */
+    public Map<Object, Object> getAll(Cache cache, Collection<?> keys) {
+        if (keys.isEmpty()) {
+            return Map.of();
+        }
+        if (cache instanceof TwoLevelCache twoLevel) {
+            return twoLevel.getAll(keys, missing -> getAll(twoLevel.getL2(), missing));
+        }
+        if (cache instanceof RedisCache redisCache) {
+            return mget(redisCache, keys);
+        }
+
+        Map<Object, Object> found = new HashMap<>();
+        for (Object key : keys) {
+            Cache.ValueWrapper wrapper = cache.get(key);
+            if (wrapper != null && wrapper.get() != null) {
+                found.put(key, wrapper.get());
+            }
+        }
+        return found;
+    }
+
+    private Map<Object, Object> mget(RedisCache cache, Collection<?> keys) {
+        RedisCacheConfiguration config = cache.getCacheConfiguration();
+        String prefix = config.usePrefix() ? config.getKeyPrefixFor(cache.getName()) : "";
+
+        List<Object> keyList = new ArrayList<>(keys);
+        byte[][] rawKeys = new byte[keyList.size()][];
+        for (int i = 0; i < rawKeys.length; i++) {
+            rawKeys[i] = ByteUtils.getBytes(config.getKeySerializationPair().write(prefix + keyList.get(i)));
+        }
+
+        List<byte[]> rawValues;
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            rawValues = connection.stringCommands().mGet(rawKeys);
+        }
+
+        Map<Object, Object> found = new HashMap<>();
+        for (int i = 0; rawValues != null && i < rawValues.size(); i++) {
+            byte[] raw = rawValues.get(i);
+            if (raw == null) {
+                continue;
+            }
+            Object value = config.getValueSerializationPair().read(ByteBuffer.wrap(raw));
+            if (value != null) {
+                found.put(keyList.get(i), value);
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,34 @@
+package br.com.ricarte.assinaflow.config;
+
+import br.com.ricarte.assinaflow.subscription.LocalPaymentRateLimiter;
+import br.com.ricarte.assinaflow.subscription.PaymentRateLimiter;
+import br.com.ricarte.assinaflow.subscription.RedisPaymentRateLimiter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+@Configuration
+public class PaymentThrottleConfig {
+
+    /**
+     * Bucket store of the payment throttle: local, or Redis-backed (falling back to local)
+     * with app.payments.throttle.redis.enabled. Skipped when another PaymentRateLimiter bean
+     * is defined.
+     */
+    @Bean
+    @ConditionalOnMissingBean(PaymentRateLimiter.class)
+    public PaymentRateLimiter paymentRateLimiter(
+            ObjectProvider<StringRedisTemplate> redisTemplate,
+            @Value("${app.payments.throttle.redis.enabled:false}") boolean redisEnabled,
+            @Value("${app.payments.throttle.redis.keyPrefix:assinaflow:payments:bucket:}") String keyPrefix
+    ) {
+        LocalPaymentRateLimiter local = new LocalPaymentRateLimiter();
+        if (!redisEnabled) {
+            return local;
+        }
+        return new RedisPaymentRateLimiter(redisTemplate.getObject(), keyPrefix, local);
+    }
+}
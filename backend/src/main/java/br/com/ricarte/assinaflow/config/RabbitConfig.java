@@ -2,13 +2,17 @@ package br.com.ricarte.assinaflow.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 
 @Configuration
 public class RabbitConfig {
@@ -25,6 +29,70 @@ public class RabbitConfig {
         return template;
     }
 
+    /**
+     * Opt-in listener container factory whose consumers run on virtual threads.
+     * Registered under Boot's default name, so existing @RabbitListener methods pick it up unchanged.
+     *
+     * The consumer holds a DB connection only in its short claim and apply transactions, not
+     * during the charge, so the Hikari pool does not bound the deliveries in flight. The number of
+     * consumers is maxInFlight, capped by the payment throttle's maxConcurrent when the throttle
+     * is on: more consumers would only queue on its in-flight slots.
+     */
+    @Bean(name = "rabbitListenerContainerFactory")
+    @ConditionalOnProperty(name = "app.rabbitmq.payments.virtualThreads.enabled", havingValue = "true")
+    public SimpleRabbitListenerContainerFactory virtualThreadListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            @Value("${app.rabbitmq.payments.virtualThreads.maxInFlight:64}") int maxInFlight,
+            @Value("${app.rabbitmq.payments.virtualThreads.prefetch:10}") int prefetch,
+            @Value("${app.payments.throttle.enabled:false}") boolean throttleEnabled,
+            @Value("${app.payments.throttle.maxConcurrent:20}") int throttleMaxConcurrent
+    ) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+
+        int inFlight = paymentConsumers(maxInFlight, throttleEnabled, throttleMaxConcurrent);
+        factory.setTaskExecutor(new VirtualThreadTaskExecutor("payments-consumer-"));
+        factory.setConcurrentConsumers(inFlight);
+        factory.setMaxConcurrentConsumers(inFlight);
+        factory.setPrefetchCount(Math.max(1, prefetch));
+        return factory;
+    }
+
+    static int paymentConsumers(int maxInFlight, boolean throttleEnabled, int throttleMaxConcurrent) {
+        int cap = throttleEnabled ? Math.min(maxInFlight, throttleMaxConcurrent) : maxInFlight;
+        return Math.max(1, cap);
+    }
+
+    /**
+     * Batch listener factory used by PaymentChargeBatchConsumer. The container groups up to
+     * batchSize deliveries (waiting at most receiveTimeoutMs to fill a batch) and leaves
+     * acknowledgement to the listener, which acks/nacks each message by outcome.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.rabbitmq.payments.batch.enabled", havingValue = "true")
+    public SimpleRabbitListenerContainerFactory paymentsBatchListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            @Value("${app.rabbitmq.payments.batch.size:100}") int batchSize,
+            @Value("${app.rabbitmq.payments.batch.receiveTimeoutMs:200}") long receiveTimeoutMs,
+            @Value("${app.rabbitmq.payments.batch.consumers:1}") int consumers
+    ) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+
+        int size = Math.max(1, batchSize);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(size);
+        factory.setPrefetchCount(size);
+        factory.setReceiveTimeout(Math.max(1, receiveTimeoutMs));
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setConcurrentConsumers(Math.max(1, consumers));
+        factory.setMaxConcurrentConsumers(Math.max(1, consumers));
+        return factory;
+    }
+
     @Bean
     public Declarables paymentsDeclarables(
             @Value("${app.rabbitmq.payments.exchange:payments.exchange}") String exchangeName,
@@ -0,0 +1,148 @@
+package br.com.ricarte.assinaflow.config;
+
+import org.springframework.cache.Cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Read-through L1 over L2: L1 misses are filled from L2, writes go to both. Puts, evictions
+ * and clears are reported to the invalidator (null key = clear) so other nodes drop their
+ * L1 copy and re-read from L2.
+ */
+class TwoLevelCache implements Cache {
+
+    private final String name;
+    private final Cache l1;
+    private final Cache l2;
+    private final BiConsumer<String, Object> invalidator;
+
+    TwoLevelCache(String name, Cache l1, Cache l2, BiConsumer<String, Object> invalidator) {
+        this.name = name;
+        this.l1 = l1;
+        this.l2 = l2;
+        this.invalidator = invalidator;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper local = l1.get(key);
+        if (local != null) {
+            return local;
+        }
+
+        ValueWrapper remote = l2.get(key);
+        if (remote != null) {
+            l1.put(key, remote.get());
+        }
+        return remote;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper local = l1.get(key);
+        if (local != null) {
+            return (T) local.get();
+        }
+
+        T value = l2.get(key, valueLoader);
+        if (value != null) {
+            l1.put(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        l2.put(key, value);
+        l1.put(key, value);
+        invalidator.accept(name, key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = l2.putIfAbsent(key, value);
+        l1.put(key, existing != null ? existing.get() : value);
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        l2.evict(key);
+        l1.evict(key);
+        invalidator.accept(name, key);
+    }
+
+    @Override
+    public void clear() {
+        l2.clear();
+        l1.clear();
+        invalidator.accept(name, null);
+    }
+
+    /**
+     * Multi-key read: L1 first, then the remaining keys from L2 through l2Reader in one call.
+     * L2 hits are copied into L1, as in get.
+     */
+    Map<Object, Object> getAll(Collection<?> keys, Function<Collection<?>, Map<Object, Object>> l2Reader) {
+        Map<Object, Object> found = new HashMap<>();
+        List<Object> missing = new ArrayList<>();
+        for (Object key : keys) {
+            ValueWrapper local = l1.get(key);
+            if (local != null && local.get() != null) {
+                found.put(key, local.get());
+            } else {
+                missing.add(key);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            l2Reader.apply(missing).forEach((key, value) -> {
+                l1.put(key, value);
+                found.put(key, value);
+            });
+        }
+        return found;
+    }
+
+    Cache getL2() {
+        return l2;
+    }
+
+    /** Drops the local copy only; used when another node reports an invalidation. */
+    void evictLocal(Object key) {
+        if (key == null) {
+            l1.clear();
+        } else {
+            l1.evict(key);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package br.com.ricarte.assinaflow.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Near cache: a bounded Caffeine L1 on each node in front of the shared Redis L2.
+ *
+ * Every evict/clear is broadcast on a Redis pub/sub channel so the other nodes drop their L1
+ * copy. Pub/sub is fire-and-forget, so the L1 TTL is what bounds staleness if a message is lost.
+ */
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(TwoLevelCacheManager.class);
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final RedisCacheManager l2;
+    private final RedisTemplate<Object, Object> redisTemplate;
+    private final String channel;
+    private final long maxSize;
+    private final Duration ttl;
+
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(
+            RedisCacheManager l2,
+            RedisTemplate<Object, Object> redisTemplate,
+            String channel,
+            long maxSize,
+            Duration ttl
+    ) {
+        this.l2 = l2;
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, n -> new TwoLevelCache(
+                n,
+                new CaffeineCache(n, Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).build(), false),
+                l2.getCache(n),
+                this::publishInvalidation
+        ));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    private void publishInvalidation(String cacheName, Object key) {
+        try {
+            redisTemplate.convertAndSend(channel, new Invalidation(nodeId, cacheName, key));
+        } catch (RuntimeException e) {
+            log.warn("cache invalidation publish failed cache={} key={} error={}", cacheName, key, e.toString());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object body = redisTemplate.getValueSerializer().deserialize(message.getBody());
+        if (!(body instanceof Invalidation invalidation) || nodeId.equals(invalidation.origin())) {
+            return;
+        }
+
+        TwoLevelCache cache = caches.get(invalidation.cacheName());
+        if (cache != null) {
+            cache.evictLocal(invalidation.key());
+        }
+    }
+
+    /** A null key means the whole cache was cleared. */
+    record Invalidation(String origin, String cacheName, Object key) implements Serializable {
+    }
+}
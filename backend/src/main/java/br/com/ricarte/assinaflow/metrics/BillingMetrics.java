@@ -4,6 +4,8 @@ import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Centralized metrics for billing/renewal/outbox. Uses Micrometer via Spring Boot Actuator.
  *
@@ -27,6 +29,26 @@ public class BillingMetrics {
         registry.counter("payment_charge_total", "approved", String.valueOf(approved)).increment();
     }
 
+    /** Time a charge waited for the payment throttle; throttled=true when it gave up. */
+    public void paymentThrottleWait(String bucket, boolean throttled, long nanos) {
+        registry.timer("payment_throttle_wait", "bucket", safe(bucket), "throttled", String.valueOf(throttled))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** Async charge recorded on its attempt but not applied, because the subscription changed during the charge. */
+    public void paymentChargeUnapplied(boolean approved) {
+        registry.counter("payment_charge_unapplied_total", "approved", String.valueOf(approved)).increment();
+    }
+
+    /** PENDING attempt past its lease, flagged UNKNOWN for manual review. */
+    public void renewalAttemptUnresolved() {
+        registry.counter("renewal_attempt_unresolved_total").increment();
+    }
+
+    public void renewalDeferred(String reason) {
+        registry.counter("renewal_deferred_total", "reason", reason).increment();
+    }
+
     public void renewalAttempt(boolean success, String mode) {
         registry.counter("renewal_attempt_total", "success", String.valueOf(success), "mode", mode).increment();
     }
@@ -1,25 +1,41 @@
 package br.com.ricarte.assinaflow.metrics;
 
-import br.com.ricarte.assinaflow.outbox.OutboxRepository;
-import br.com.ricarte.assinaflow.outbox.OutboxStatus;
+import br.com.ricarte.assinaflow.outbox.OutboxCounters;
+import br.com.ricarte.assinaflow.outbox.OutboxPartitionService;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.stereotype.Component;
 
 /**
- * Gauges that require lightweight DB reads. In a high-throughput system, you would
- * typically materialize these counts (or sample) to avoid DB load on frequent scrapes.
+ * Outbox gauges backed by {@link OutboxCounters}: scrapes are O(1) and never query the DB.
+ * outbox_counter_drift shows how far the in-memory counts were off at the last reconciliation.
+ * outbox_default_partition_rows is the row count of outbox_events_default at the last
+ * partition run; anything above 0 means days the premake did not cover.
  */
 @Component
 public class OutboxMetrics {
 
-    public OutboxMetrics(MeterRegistry registry, OutboxRepository outboxRepository) {
-        Gauge.builder("outbox_pending", outboxRepository, r -> r.countByStatus(OutboxStatus.PENDING))
+    public OutboxMetrics(MeterRegistry registry, OutboxCounters outboxCounters, OutboxPartitionService partitionService) {
+        Gauge.builder("outbox_pending", outboxCounters, OutboxCounters::pending)
                 .description("Number of pending outbox events")
                 .register(registry);
 
-        Gauge.builder("outbox_dead", outboxRepository, r -> r.countByStatus(OutboxStatus.DEAD))
+        Gauge.builder("outbox_dead", outboxCounters, OutboxCounters::dead)
                 .description("Number of dead-letter outbox events")
                 .register(registry);
+
+        Gauge.builder("outbox_counter_drift", outboxCounters, OutboxCounters::pendingDrift)
+                .tag("status", "PENDING")
+                .description("DB count minus in-memory count at the last reconciliation")
+                .register(registry);
+
+        Gauge.builder("outbox_counter_drift", outboxCounters, OutboxCounters::deadDrift)
+                .tag("status", "DEAD")
+                .description("DB count minus in-memory count at the last reconciliation")
+                .register(registry);
+
+        Gauge.builder("outbox_default_partition_rows", partitionService, OutboxPartitionService::defaultRows)
+                .description("Rows left in outbox_events_default at the last partition run")
+                .register(registry);
     }
 }
@@ -0,0 +1,108 @@
+package br.com.ricarte.assinaflow.outbox;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory PENDING/DEAD counts of outbox_events, so metric scrapes never hit the database.
+ *
+ * Transitions report deltas; inside a transaction a delta is applied only after commit
+ * (and dropped on rollback). Periodic reconciliation against the table resets the counts and
+ * records the drift, which covers what deltas cannot see (rolled-back savepoints, other
+ * instances, manual fixes).
+ */
+@Component
+public class OutboxCounters {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxCounters.class);
+
+    private final OutboxRepository outboxRepository;
+
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong dead = new AtomicLong();
+    private final AtomicLong pendingDrift = new AtomicLong();
+    private final AtomicLong deadDrift = new AtomicLong();
+
+    public OutboxCounters(OutboxRepository outboxRepository) {
+        this.outboxRepository = outboxRepository;
+    }
+
+    public long pending() {
+        return pending.get();
+    }
+
+    public long dead() {
+        return dead.get();
+    }
+
+    /** Database count minus in-memory count observed at the last reconciliation. */
+    public long pendingDrift() {
+        return pendingDrift.get();
+    }
+
+    /** Database count minus in-memory count observed at the last reconciliation. */
+    public long deadDrift() {
+        return deadDrift.get();
+    }
+
+    public void enqueued(int n) {
+        apply(n, 0);
+    }
+
+    public void published(int n) {
+        apply(-n, 0);
+    }
+
+    public void deadLettered(int n) {
+        apply(-n, n);
+    }
+
+    /** DEAD rows removed from outbox_events (archived by partition pruning). */
+    public void deadRemoved(int n) {
+        apply(0, -n);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(
+            initialDelayString = "${app.outbox.counters.reconcileIntervalMs:60000}",
+            fixedDelayString = "${app.outbox.counters.reconcileIntervalMs:60000}"
+    )
+    public void reconcile() {
+        long dbPending = outboxRepository.countByStatus(OutboxStatus.PENDING);
+        long dbDead = outboxRepository.countByStatus(OutboxStatus.DEAD);
+
+        long pDrift = dbPending - pending.getAndSet(dbPending);
+        long dDrift = dbDead - dead.getAndSet(dbDead);
+        pendingDrift.set(pDrift);
+        deadDrift.set(dDrift);
+
+        if (pDrift != 0 || dDrift != 0) {
+            log.info("outbox counters reconciled pending={} dead={} pendingDrift={} deadDrift={}",
+                    dbPending, dbDead, pDrift, dDrift);
+        }
+    }
+
+    private void apply(long pendingDelta, long deadDelta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            pending.addAndGet(pendingDelta);
+            dead.addAndGet(deadDelta);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                pending.addAndGet(pendingDelta);
+                dead.addAndGet(deadDelta);
+            }
+        });
+    }
+}
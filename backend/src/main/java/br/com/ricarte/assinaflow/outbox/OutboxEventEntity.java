@@ -1,15 +1,14 @@
 package br.com.ricarte.assinaflow.outbox;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.Instant;
 import java.util.UUID;
 
 @Entity
-@Table(
-        name = "outbox_events",
-        uniqueConstraints = @UniqueConstraint(name = "uq_outbox_idempotency_key", columnNames = {"idempotency_key"})
-)
+@Table(name = "outbox_events")
 public class OutboxEventEntity {
 
     @Id
@@ -28,6 +27,7 @@ public class OutboxEventEntity {
     @Column(name = "idempotency_key", nullable = false, length = 200)
     private String idempotencyKey;
 
+    @JdbcTypeCode(SqlTypes.JSON)
     @Column(name = "payload", nullable = false, columnDefinition = "jsonb")
     private String payload;
 
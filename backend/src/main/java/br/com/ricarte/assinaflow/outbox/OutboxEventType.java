@@ -0,0 +1,31 @@
+package br.com.ricarte.assinaflow.outbox;
+
+import br.com.ricarte.assinaflow.subscription.PaymentChargeRequested;
+
+/**
+ * Known values of outbox_events.event_type and the message type each payload carries.
+ * The payload type is sent as the __TypeId__ header, matching what Jackson2JsonMessageConverter
+ * would have produced for the same object.
+ */
+public enum OutboxEventType {
+    PAYMENT_CHARGE_REQUESTED(PaymentChargeRequested.class);
+
+    private final Class<?> payloadType;
+
+    OutboxEventType(Class<?> payloadType) {
+        this.payloadType = payloadType;
+    }
+
+    public Class<?> payloadType() {
+        return payloadType;
+    }
+
+    public static OutboxEventType of(String eventType) {
+        for (OutboxEventType t : values()) {
+            if (t.name().equals(eventType)) {
+                return t;
+            }
+        }
+        throw new IllegalArgumentException("unknown outbox eventType: " + eventType);
+    }
+}
@@ -0,0 +1,125 @@
+package br.com.ricarte.assinaflow.outbox;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Wakes the outbox publisher as soon as {@link OutboxNotifier} signals a commit.
+ *
+ * Holds one dedicated connection (outside the Hikari pool) that LISTENs on
+ * {@link OutboxNotifier#CHANNEL}. Each wakeup drains the ready events; after every
+ * (re)connect a drain also runs, since notifications sent while disconnected are lost.
+ * The publisher cron stays on as a slow safety sweep for backoff retries and missed signals.
+ */
+@Component
+@ConditionalOnExpression("${app.payments.async.enabled:false} and ${app.outbox.notify.enabled:false}")
+public class OutboxNotificationListener {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxNotificationListener.class);
+
+    private final OutboxPublisher outboxPublisher;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int batchSize;
+    private final int pollTimeoutMs;
+    private final long reconnectBackoffMs;
+
+    private final ExecutorService executor =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("outbox-listener-"));
+    private volatile boolean running = true;
+
+    public OutboxNotificationListener(
+            OutboxPublisher outboxPublisher,
+            @Value("${spring.datasource.url}") String url,
+            @Value("${spring.datasource.username}") String username,
+            @Value("${spring.datasource.password}") String password,
+            @Value("${app.outbox.publisher.batchSize:100}") int batchSize,
+            @Value("${app.outbox.notify.pollTimeoutMs:10000}") int pollTimeoutMs,
+            @Value("${app.outbox.notify.reconnectBackoffMs:5000}") long reconnectBackoffMs
+    ) {
+        this.outboxPublisher = outboxPublisher;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.batchSize = Math.max(1, batchSize);
+        this.pollTimeoutMs = Math.max(1, pollTimeoutMs);
+        this.reconnectBackoffMs = Math.max(0, reconnectBackoffMs);
+    }
+
+    @PostConstruct
+    void start() {
+        executor.submit(this::listen);
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url, username, password)) {
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                try (Statement st = connection.createStatement()) {
+                    st.execute("LISTEN " + OutboxNotifier.CHANNEL);
+                }
+                log.info("outbox listener connected channel={}", OutboxNotifier.CHANNEL);
+
+                drain();
+                while (running) {
+                    // Bounded wait so shutdown is noticed and a dead connection surfaces as SQLException.
+                    PGNotification[] notifications = pg.getNotifications(pollTimeoutMs);
+                    if (notifications != null && notifications.length > 0) {
+                        drain();
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("outbox listener connection lost, reconnecting in {}ms error={}", reconnectBackoffMs, e.toString());
+                try {
+                    Thread.sleep(reconnectBackoffMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            int total = 0;
+            int published;
+            do {
+                published = outboxPublisher.publishPending(batchSize);
+                total += published;
+            } while (running && published >= batchSize);
+
+            if (total > 0) {
+                log.info("outbox published={} trigger=notify", total);
+            }
+        } catch (RuntimeException e) {
+            // Left for the next notification or the safety sweep.
+            log.error("outbox publish on notify failed error={}", e.toString());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        running = false;
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,33 @@
+package br.com.ricarte.assinaflow.outbox;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Signals new outbox rows with a Postgres NOTIFY on {@link #CHANNEL}.
+ *
+ * The NOTIFY runs on the caller's transactional connection, so Postgres only delivers it
+ * after the enqueueing transaction commits (and drops it on rollback). Several NOTIFYs with
+ * the same payload in one transaction are collapsed into a single notification.
+ */
+@Component
+public class OutboxNotifier {
+
+    public static final String CHANNEL = "outbox_events";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+
+    public OutboxNotifier(JdbcTemplate jdbcTemplate, @Value("${app.outbox.notify.enabled:false}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+
+    public void notifyPending() {
+        if (!enabled) {
+            return;
+        }
+        jdbcTemplate.execute("NOTIFY " + CHANNEL);
+    }
+}
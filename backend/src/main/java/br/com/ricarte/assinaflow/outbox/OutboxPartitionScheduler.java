@@ -0,0 +1,51 @@
+package br.com.ricarte.assinaflow.outbox;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+/**
+ * Partition upkeep for outbox_events. Uses the wall clock (not TimeProvider) because
+ * created_at is always stamped with the real time.
+ */
+@Component
+@ConditionalOnProperty(name = "app.scheduler.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxPartitionScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxPartitionScheduler.class);
+
+    private final OutboxPartitionService partitionService;
+    private final boolean retentionEnabled;
+
+    public OutboxPartitionScheduler(
+            OutboxPartitionService partitionService,
+            @Value("${app.outbox.retention.enabled:true}") boolean retentionEnabled
+    ) {
+        this.partitionService = partitionService;
+        this.retentionEnabled = retentionEnabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        runMaintenance();
+    }
+
+    @Scheduled(cron = "${app.outbox.partitions.cron:0 30 0 * * *}", zone = "UTC")
+    public void runMaintenance() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+
+        int created = partitionService.ensurePartitions(today);
+        int pruned = retentionEnabled ? partitionService.prune(today) : 0;
+        if (created > 0 || pruned > 0) {
+            log.info("outbox partitions created={} pruned={}", created, pruned);
+        }
+    }
+}
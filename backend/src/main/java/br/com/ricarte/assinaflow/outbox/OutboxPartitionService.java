@@ -0,0 +1,251 @@
+package br.com.ricarte.assinaflow.outbox;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the daily range partitions of outbox_events (by created_at, UTC).
+ *
+ * - ensurePartitions: creates partitions ahead of time; rows without a matching partition
+ *   land in outbox_events_default. Days found in the default partition (a missed premake)
+ *   get their partition too, with their rows moved out of the default, so the default never
+ *   keeps growing and retention prunes those days like any other. Its row count after each
+ *   run is exposed by {@link #defaultRows()}.
+ * - prune: once a partition is older than the retention window, its DEAD rows are copied to
+ *   outbox_events_dead and the partition is detached (and dropped, unless mode=detach).
+ *   Partitions that still hold PENDING rows are never pruned.
+ *
+ * Partition DDL takes an exclusive lock on outbox_events, so every statement runs with a
+ * short lock_timeout and simply retries on the next run if the publisher holds it.
+ */
+@Service
+public class OutboxPartitionService {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxPartitionService.class);
+
+    static final String PARTITION_PREFIX = "outbox_events_p";
+    private static final Pattern PARTITION_NAME = Pattern.compile("^" + PARTITION_PREFIX + "(\\d{8})$");
+    private static final DateTimeFormatter DAY = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OutboxCounters outboxCounters;
+    private final TransactionTemplate requiresNewTx;
+
+    private final int premakeDays;
+    private final int retentionDays;
+    private final boolean dropDetached;
+    private final long lockTimeoutMs;
+
+    private final AtomicLong defaultRows = new AtomicLong();
+
+    public OutboxPartitionService(
+            JdbcTemplate jdbcTemplate,
+            OutboxCounters outboxCounters,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.outbox.partitions.premakeDays:7}") int premakeDays,
+            @Value("${app.outbox.retention.days:7}") int retentionDays,
+            @Value("${app.outbox.retention.mode:drop}") String mode,
+            @Value("${app.outbox.retention.lockTimeoutMs:5000}") long lockTimeoutMs
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.outboxCounters = outboxCounters;
+        this.premakeDays = Math.max(1, premakeDays);
+        this.retentionDays = Math.max(1, retentionDays);
+        this.dropDetached = !"detach".equalsIgnoreCase(mode);
+        this.lockTimeoutMs = Math.max(1, lockTimeoutMs);
+
+        this.requiresNewTx = new TransactionTemplate(transactionManager);
+        this.requiresNewTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Creates the partitions for today through today + premakeDays that do not exist yet, and
+     * for every day that has rows in the default partition (those rows are moved into it).
+     *
+     * @return number of partitions created
+     */
+    public int ensurePartitions(LocalDate today) {
+        Set<String> existing = new HashSet<>(listPartitions());
+        Set<LocalDate> stranded = new HashSet<>(defaultPartitionDays());
+        Set<LocalDate> days = new TreeSet<>(stranded);
+        for (int i = 0; i <= premakeDays; i++) {
+            days.add(today.plusDays(i));
+        }
+
+        int created = 0;
+        for (LocalDate day : days) {
+            String name = partitionName(day);
+            if (existing.contains(name)) {
+                continue;
+            }
+
+            try {
+                if (stranded.contains(day)) {
+                    moveOutOfDefault(name, day);
+                } else {
+                    requiresNewTx.executeWithoutResult(status -> {
+                        setLockTimeout();
+                        jdbcTemplate.execute("CREATE TABLE " + name + " PARTITION OF outbox_events"
+                                + " FOR VALUES FROM ('" + startOf(day) + "') TO ('" + startOf(day.plusDays(1)) + "')");
+                    });
+                }
+                created++;
+            } catch (DataAccessException e) {
+                // Lock timeout, or rows for that day reached the default partition after it was read.
+                log.warn("outbox partition create failed partition={} error={}", name, e.getMostSpecificCause().toString());
+            }
+        }
+
+        Long remaining = jdbcTemplate.queryForObject("SELECT count(*) FROM outbox_events_default", Long.class);
+        defaultRows.set(remaining == null ? 0 : remaining);
+        if (defaultRows.get() > 0) {
+            log.warn("outbox default partition not empty rows={}", defaultRows.get());
+        }
+
+        return created;
+    }
+
+    /** Rows left in outbox_events_default after the last {@link #ensurePartitions(LocalDate)}. */
+    public long defaultRows() {
+        return defaultRows.get();
+    }
+
+    /**
+     * A day's partition cannot be created while the default partition holds rows of that day.
+     * In one transaction: lock the default (so no row of that day lands there meanwhile), build
+     * the partition as a plain table, move the day's rows into it and attach it.
+     */
+    private void moveOutOfDefault(String name, LocalDate day) {
+        requiresNewTx.executeWithoutResult(status -> {
+            setLockTimeout();
+            jdbcTemplate.execute("LOCK TABLE outbox_events_default IN ACCESS EXCLUSIVE MODE");
+            jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE outbox_events INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+            int moved = jdbcTemplate.update("""
+                    WITH moved AS (
+                        DELETE FROM outbox_events_default
+                        WHERE created_at >= ?::timestamptz AND created_at < ?::timestamptz
+                        RETURNING *
+                    )
+                    INSERT INTO %s SELECT * FROM moved
+                    """.formatted(name), startOf(day), startOf(day.plusDays(1)));
+            jdbcTemplate.execute("ALTER TABLE outbox_events ATTACH PARTITION " + name
+                    + " FOR VALUES FROM ('" + startOf(day) + "') TO ('" + startOf(day.plusDays(1)) + "')");
+
+            log.warn("outbox rows moved out of the default partition partition={} rows={}", name, moved);
+        });
+    }
+
+    private List<LocalDate> defaultPartitionDays() {
+        return jdbcTemplate.queryForList(
+                "SELECT DISTINCT (created_at AT TIME ZONE 'UTC')::date FROM outbox_events_default", LocalDate.class);
+    }
+
+    /**
+     * Prunes partitions whose whole range is older than today - retentionDays, and the
+     * idempotency keys of the same age.
+     *
+     * @return number of partitions pruned
+     */
+    public int prune(LocalDate today) {
+        LocalDate cutoff = today.minusDays(retentionDays);
+        int pruned = 0;
+
+        for (String name : listPartitions()) {
+            Matcher m = PARTITION_NAME.matcher(name);
+            if (!m.matches()) {
+                continue;
+            }
+            LocalDate day = LocalDate.parse(m.group(1), DAY);
+            if (day.plusDays(1).isAfter(cutoff)) {
+                continue;
+            }
+
+            try {
+                if (prunePartition(name)) {
+                    pruned++;
+                }
+            } catch (DataAccessException e) {
+                log.warn("outbox partition prune failed partition={} error={}", name, e.getMostSpecificCause().toString());
+            }
+        }
+
+        int keys = jdbcTemplate.update("DELETE FROM outbox_idempotency_keys WHERE created_at < ?::timestamptz", startOf(cutoff));
+        if (keys > 0) {
+            log.info("outbox idempotency keys pruned={}", keys);
+        }
+
+        return pruned;
+    }
+
+    private boolean prunePartition(String name) {
+        return Boolean.TRUE.equals(requiresNewTx.execute(status -> {
+            setLockTimeout();
+
+            Integer pending = jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM " + name + " WHERE status = 'PENDING'", Integer.class);
+            if (pending != null && pending > 0) {
+                log.warn("outbox partition kept partition={} pending={}", name, pending);
+                return false;
+            }
+
+            int archived = jdbcTemplate.update("""
+                    INSERT INTO outbox_events_dead (id, aggregate_type, aggregate_id, event_type, idempotency_key,
+                                                    payload, publish_attempts, created_at, last_error, dead_at)
+                    SELECT id, aggregate_type, aggregate_id, event_type, idempotency_key,
+                           payload, publish_attempts, created_at, last_error, dead_at
+                    FROM %s
+                    WHERE status = 'DEAD'
+                    ON CONFLICT (id) DO NOTHING
+                    """.formatted(name));
+
+            jdbcTemplate.execute("ALTER TABLE outbox_events DETACH PARTITION " + name);
+            if (dropDetached) {
+                jdbcTemplate.execute("DROP TABLE " + name);
+            }
+            outboxCounters.deadRemoved(archived);
+
+            log.info("outbox partition pruned partition={} deadArchived={} dropped={}", name, archived, dropDetached);
+            return true;
+        }));
+    }
+
+    private List<String> listPartitions() {
+        return jdbcTemplate.queryForList("""
+                SELECT c.relname
+                FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = 'outbox_events'::regclass
+                ORDER BY c.relname
+                """, String.class);
+    }
+
+    private void setLockTimeout() {
+        jdbcTemplate.execute("SET LOCAL lock_timeout = " + lockTimeoutMs);
+    }
+
+    static String partitionName(LocalDate day) {
+        return PARTITION_PREFIX + day.format(DAY);
+    }
+
+    private static String startOf(LocalDate day) {
+        return day.atStartOfDay().atOffset(ZoneOffset.UTC).toString();
+    }
+}
@@ -1,20 +1,32 @@
 package br.com.ricarte.assinaflow.outbox;
 
 import br.com.ricarte.assinaflow.metrics.BillingMetrics;
-import br.com.ricarte.assinaflow.subscription.PaymentChargeRequested;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.AbstractJavaTypeMapper;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class OutboxPublisher {
@@ -23,33 +35,45 @@ public class OutboxPublisher {
 
     private final OutboxRepository outboxRepository;
     private final RabbitTemplate rabbitTemplate;
-    private final ObjectMapper objectMapper;
     private final BillingMetrics billingMetrics;
+    private final OutboxCounters outboxCounters;
 
     private final String exchange;
     private final String routingKey;
 
     private final int maxPublishAttempts;
 
+    private final boolean confirmsEnabled;
+    private final Duration confirmTimeout;
+
     private final TransactionTemplate requiresNewTx;
 
     public OutboxPublisher(
             OutboxRepository outboxRepository,
             RabbitTemplate rabbitTemplate,
-            ObjectMapper objectMapper,
             BillingMetrics billingMetrics,
+            OutboxCounters outboxCounters,
             PlatformTransactionManager transactionManager,
             @Value("${app.rabbitmq.payments.exchange:payments.exchange}") String exchange,
             @Value("${app.rabbitmq.payments.routingKey:payments.charge}") String routingKey,
-            @Value("${app.outbox.publisher.maxAttempts:10}") int maxPublishAttempts
+            @Value("${app.outbox.publisher.maxAttempts:10}") int maxPublishAttempts,
+            @Value("${app.outbox.publisher.confirms.enabled:false}") boolean confirmsEnabled,
+            @Value("${app.outbox.publisher.confirms.timeoutMs:5000}") long confirmTimeoutMs
     ) {
         this.outboxRepository = outboxRepository;
         this.rabbitTemplate = rabbitTemplate;
-        this.objectMapper = objectMapper;
         this.billingMetrics = billingMetrics;
+        this.outboxCounters = outboxCounters;
         this.exchange = exchange;
         this.routingKey = routingKey;
         this.maxPublishAttempts = Math.max(1, maxPublishAttempts);
+        this.confirmsEnabled = confirmsEnabled;
+        this.confirmTimeout = Duration.ofMillis(Math.max(1, confirmTimeoutMs));
+
+        if (confirmsEnabled && !rabbitTemplate.getConnectionFactory().isPublisherConfirms()) {
+            throw new IllegalStateException(
+                    "app.outbox.publisher.confirms.enabled requires spring.rabbitmq.publisher-confirm-type=correlated");
+        }
 
         this.requiresNewTx = new TransactionTemplate(transactionManager);
         this.requiresNewTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
@@ -65,11 +89,18 @@ public class OutboxPublisher {
      * Failure handling:
      * - backoff is deterministic
      * - after max attempts, the record is marked DEAD
+     *
+     * With app.outbox.publisher.confirms.enabled the batch is published with correlated
+     * publisher confirms (see {@link #publishWithConfirms(List, Instant)}).
      */
     public int publishPending(int max) {
         return requiresNewTx.execute(status -> {
             Instant now = Instant.now();
             List<OutboxEventEntity> events = outboxRepository.lockPendingReady(now, max);
+            if (confirmsEnabled) {
+                return publishWithConfirms(events, now);
+            }
+
             int published = 0;
 
             for (OutboxEventEntity e : events) {
@@ -86,8 +117,7 @@ public class OutboxPublisher {
         int attempt = e.getPublishAttempts() + 1;
 
         try {
-            PaymentChargeRequested msg = objectMapper.readValue(e.getPayload(), PaymentChargeRequested.class);
-            rabbitTemplate.convertAndSend(exchange, routingKey, msg);
+            rabbitTemplate.send(exchange, routingKey, toMessage(e));
 
             e.setStatus(OutboxStatus.SENT);
             e.setSentAt(now);
@@ -97,32 +127,103 @@ public class OutboxPublisher {
             outboxRepository.save(e);
 
             billingMetrics.outboxPublish(true);
+            outboxCounters.published(1);
             return true;
         } catch (Exception ex) {
-            billingMetrics.outboxPublish(false);
-
-            e.setPublishAttempts(attempt);
-            e.setLastError(truncate(ex.toString(), 1000));
+            recordFailure(e, now, ex.toString());
+            return false;
+        }
+    }
 
-            if (attempt >= maxPublishAttempts) {
-                e.setStatus(OutboxStatus.DEAD);
-                e.setDeadAt(now);
-                e.setNextAttemptAt(now);
-                outboxRepository.save(e);
-                billingMetrics.outboxDeadLetter();
+    /**
+     * Sends the whole batch without waiting per message, then waits for all publisher
+     * confirms against a single deadline. Confirmed rows are marked SENT with one bulk
+     * UPDATE; nacked, timed-out or unsendable rows go through the regular backoff/DEAD path.
+     */
+    private int publishWithConfirms(List<OutboxEventEntity> events, Instant now) {
+        Map<OutboxEventEntity, CorrelationData> inFlight = new LinkedHashMap<>();
+        for (OutboxEventEntity e : events) {
+            try {
+                CorrelationData correlation = new CorrelationData(e.getId().toString());
+                rabbitTemplate.send(exchange, routingKey, toMessage(e), correlation);
+                inFlight.put(e, correlation);
+            } catch (Exception ex) {
+                recordFailure(e, now, ex.toString());
+            }
+        }
 
-                log.error("outbox DEAD eventId={} attempts={} error={}", e.getId(), attempt, ex.toString());
-                return false;
+        long deadline = System.nanoTime() + confirmTimeout.toNanos();
+        List<UUID> confirmed = new ArrayList<>(inFlight.size());
+
+        for (Map.Entry<OutboxEventEntity, CorrelationData> entry : inFlight.entrySet()) {
+            OutboxEventEntity e = entry.getKey();
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                CorrelationData.Confirm confirm = entry.getValue().getFuture().get(remaining, TimeUnit.NANOSECONDS);
+                if (confirm.isAck()) {
+                    confirmed.add(e.getId());
+                } else {
+                    recordFailure(e, now, "publisher nack: " + confirm.getReason());
+                }
+            } catch (TimeoutException ex) {
+                recordFailure(e, now, "publisher confirm timeout after " + confirmTimeout.toMillis() + "ms");
+            } catch (ExecutionException ex) {
+                recordFailure(e, now, ex.getCause().toString());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                recordFailure(e, now, ex.toString());
             }
+        }
+
+        if (!confirmed.isEmpty()) {
+            outboxRepository.markSent(confirmed.toArray(UUID[]::new), now);
+            confirmed.forEach(id -> billingMetrics.outboxPublish(true));
+            outboxCounters.published(confirmed.size());
+        }
+        return confirmed.size();
+    }
+
+    /**
+     * Builds the AMQP message straight from the stored jsonb payload, skipping the
+     * deserialize/serialize round-trip through the message converter. Headers match what
+     * Jackson2JsonMessageConverter sets, so consumers see the same message either way.
+     */
+    static Message toMessage(OutboxEventEntity e) {
+        OutboxEventType type = OutboxEventType.of(e.getEventType());
+        return MessageBuilder.withBody(e.getPayload().getBytes(StandardCharsets.UTF_8))
+                .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                .setContentEncoding(StandardCharsets.UTF_8.name())
+                .setDeliveryMode(MessageDeliveryMode.PERSISTENT)
+                .setMessageId(e.getId().toString())
+                .setHeader(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME, type.payloadType().getName())
+                .build();
+    }
 
-            Duration backoff = publishBackoff(attempt);
-            e.setNextAttemptAt(now.plus(backoff));
+    private void recordFailure(OutboxEventEntity e, Instant now, String error) {
+        billingMetrics.outboxPublish(false);
+
+        int attempt = e.getPublishAttempts() + 1;
+        e.setPublishAttempts(attempt);
+        e.setLastError(truncate(error, 1000));
+
+        if (attempt >= maxPublishAttempts) {
+            e.setStatus(OutboxStatus.DEAD);
+            e.setDeadAt(now);
+            e.setNextAttemptAt(now);
             outboxRepository.save(e);
+            billingMetrics.outboxDeadLetter();
+            outboxCounters.deadLettered(1);
 
-            log.warn("outbox publish failed eventId={} attempts={} nextAttemptAt={} error={}",
-                    e.getId(), attempt, e.getNextAttemptAt(), ex.toString());
-            return false;
+            log.error("outbox DEAD eventId={} attempts={} error={}", e.getId(), attempt, error);
+            return;
         }
+
+        Duration backoff = publishBackoff(attempt);
+        e.setNextAttemptAt(now.plus(backoff));
+        outboxRepository.save(e);
+
+        log.warn("outbox publish failed eventId={} attempts={} nextAttemptAt={} error={}",
+                e.getId(), attempt, e.getNextAttemptAt(), error);
     }
 
     private static Duration publishBackoff(int attempt) {
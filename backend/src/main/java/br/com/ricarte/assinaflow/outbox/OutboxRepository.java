@@ -1,6 +1,7 @@
 package br.com.ricarte.assinaflow.outbox;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -22,4 +23,32 @@ public interface OutboxRepository extends JpaRepository<OutboxEventEntity, UUID>
             FOR UPDATE SKIP LOCKED
             """, nativeQuery = true)
     List<OutboxEventEntity> lockPendingReady(@Param("now") Instant now, @Param("limit") int limit);
+
+    /**
+     * Reserves an idempotency key; returns 0 if it was already taken.
+     * Kept in its own table because a unique index on the partitioned outbox_events
+     * would have to include created_at.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO outbox_idempotency_keys (idempotency_key)
+            VALUES (:key)
+            ON CONFLICT DO NOTHING
+            """, nativeQuery = true)
+    int reserveIdempotencyKey(@Param("key") String key);
+
+    /**
+     * Marks a whole batch of confirmed events as SENT in one statement.
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE outbox_events
+            SET status = 'SENT',
+                sent_at = :now,
+                next_attempt_at = :now,
+                publish_attempts = publish_attempts + 1,
+                last_error = NULL
+            WHERE id = ANY(:ids)
+            """, nativeQuery = true)
+    int markSent(@Param("ids") UUID[] ids, @Param("now") Instant now);
 }
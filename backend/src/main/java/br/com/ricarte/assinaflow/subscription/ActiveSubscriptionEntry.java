@@ -0,0 +1,43 @@
+package br.com.ricarte.assinaflow.subscription;
+
+import br.com.ricarte.assinaflow.subscription.dto.SubscriptionResponse;
+
+/**
+ * Value stored in the activeSubscription cache: the response plus the time it was loaded,
+ * which lets a hit tell how close the entry is to its TTL (refresh-ahead).
+ * A null response marks a user without an active subscription (negative caching).
+ */
+public class ActiveSubscriptionEntry {
+
+    private SubscriptionResponse response;
+    private long cachedAtEpochMs;
+
+    public ActiveSubscriptionEntry() {
+    }
+
+    public ActiveSubscriptionEntry(SubscriptionResponse response, long cachedAtEpochMs) {
+        this.response = response;
+        this.cachedAtEpochMs = cachedAtEpochMs;
+    }
+
+    public SubscriptionResponse getResponse() {
+        return response;
+    }
+
+    public void setResponse(SubscriptionResponse response) {
+        this.response = response;
+    }
+
+    /** Not a bean property, so it stays out of the JSON. */
+    public boolean hasResponse() {
+        return response != null;
+    }
+
+    public long getCachedAtEpochMs() {
+        return cachedAtEpochMs;
+    }
+
+    public void setCachedAtEpochMs(long cachedAtEpochMs) {
+        this.cachedAtEpochMs = cachedAtEpochMs;
+    }
+}
@@ -0,0 +1,30 @@
+package br.com.ricarte.assinaflow.subscription;
+
+import br.com.ricarte.assinaflow.common.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Keyset position in a user's history: the (created_at, id) of the last row of a page,
+ * exposed to clients as an opaque base64url token.
+ */
+record HistoryCursor(Instant createdAt, UUID id) {
+
+    String encode() {
+        String raw = createdAt + "_" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static HistoryCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('_');
+            return new HistoryCursor(Instant.parse(raw.substring(0, sep)), UUID.fromString(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("INVALID_CURSOR", "Cursor de paginacao invalido.");
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package br.com.ricarte.assinaflow.subscription;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory token buckets, one per key. Limits this instance only: with N instances the
+ * gateway sees up to N times the configured rate.
+ */
+public class LocalPaymentRateLimiter implements PaymentRateLimiter {
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    @Override
+    public long tryAcquire(String bucket, double permitsPerSecond, int burst) {
+        return tryAcquire(bucket, permitsPerSecond, burst, System.nanoTime());
+    }
+
+    long tryAcquire(String bucket, double permitsPerSecond, int burst, long nowNanos) {
+        return buckets.computeIfAbsent(bucket, k -> new Bucket(burst, nowNanos))
+                .tryAcquire(permitsPerSecond, burst, nowNanos);
+    }
+
+    @Override
+    public double available(String bucket, double permitsPerSecond, int burst) {
+        return available(bucket, permitsPerSecond, burst, System.nanoTime());
+    }
+
+    double available(String bucket, double permitsPerSecond, int burst, long nowNanos) {
+        Bucket b = buckets.get(bucket);
+        return b == null ? burst : b.available(permitsPerSecond, burst, nowNanos);
+    }
+
+    private static final class Bucket {
+
+        private double tokens;
+        private long refilledAt;
+
+        Bucket(int burst, long nowNanos) {
+            this.tokens = burst;
+            this.refilledAt = nowNanos;
+        }
+
+        synchronized long tryAcquire(double permitsPerSecond, int burst, long nowNanos) {
+            double perNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+            refill(perNano, burst, nowNanos);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / perNano);
+        }
+
+        synchronized double available(double permitsPerSecond, int burst, long nowNanos) {
+            refill(permitsPerSecond / TimeUnit.SECONDS.toNanos(1), burst, nowNanos);
+            return tokens;
+        }
+
+        private void refill(double perNano, int burst, long nowNanos) {
+            long elapsed = nowNanos - refilledAt;
+            if (elapsed > 0) {
+                tokens = Math.min(burst, tokens + elapsed * perNano);
+                refilledAt = nowNanos;
+            }
+        }
+    }
+}
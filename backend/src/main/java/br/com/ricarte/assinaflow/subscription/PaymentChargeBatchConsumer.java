@@ -0,0 +1,340 @@
+package br.com.ricarte.assinaflow.subscription;
+
+import br.com.ricarte.assinaflow.common.time.TimeProvider;
+import br.com.ricarte.assinaflow.metrics.BillingMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Batch consumer for {@link PaymentChargeRequested}, enabled with app.rabbitmq.payments.batch.enabled.
+ *
+ * Same three phases as {@link PaymentChargeConsumer}, batched:
+ * 1. claim: one transaction for the delivered batch
+ *    - all subscriptions locked with a single SELECT ... WHERE id = ANY(?) FOR UPDATE
+ *    - idempotency checked against subscription_renewal_attempts with a single query
+ *    - one PENDING attempt row per claimed message, inserted with JDBC batching
+ *      (hibernate.jdbc.batch_size); a redelivered message finds it and is not charged again
+ * 2. charge: each claimed message charged with no transaction open
+ * 3. apply: one transaction that finishes all attempts; if it fails, each message is applied
+ *    in a transaction of its own so one bad row does not lose the results of the others
+ *
+ * A message whose apply still fails is acked: its attempt stays PENDING, a redelivery could
+ * only skip it, and {@link PendingAttemptReconciler} flags it once the lease is over.
+ *
+ * Messages are acked/nacked individually, according to their own outcome.
+ * Same eligibility rules as {@link PaymentChargeConsumer}.
+ */
+@Component
+@ConditionalOnExpression("${app.payments.async.enabled:false} and ${app.rabbitmq.payments.batch.enabled:false}")
+public class PaymentChargeBatchConsumer {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentChargeBatchConsumer.class);
+
+    enum Outcome {
+        /** Processed or safely skipped; remove from the queue. */
+        ACK,
+        /** Transient failure; redeliver. */
+        REQUEUE,
+        /** Unreadable payload; drop. */
+        REJECT
+    }
+
+    private final SubscriptionRepository subscriptionRepository;
+    private final SubscriptionRenewalAttemptRepository attemptRepository;
+    private final PaymentService paymentService;
+    private final TimeProvider timeProvider;
+    private final SubscriptionCache subscriptionCache;
+    private final RenewalAttemptApplier renewalAttemptApplier;
+    private final RenewalQueue renewalQueue;
+    private final BillingMetrics billingMetrics;
+    private final ObjectMapper objectMapper;
+
+    private final TransactionTemplate tx;
+
+    public PaymentChargeBatchConsumer(
+            SubscriptionRepository subscriptionRepository,
+            SubscriptionRenewalAttemptRepository attemptRepository,
+            PaymentService paymentService,
+            TimeProvider timeProvider,
+            SubscriptionCache subscriptionCache,
+            RenewalAttemptApplier renewalAttemptApplier,
+            RenewalQueue renewalQueue,
+            BillingMetrics billingMetrics,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.subscriptionRepository = subscriptionRepository;
+        this.attemptRepository = attemptRepository;
+        this.paymentService = paymentService;
+        this.timeProvider = timeProvider;
+        this.subscriptionCache = subscriptionCache;
+        this.renewalAttemptApplier = renewalAttemptApplier;
+        this.renewalQueue = renewalQueue;
+        this.billingMetrics = billingMetrics;
+        this.objectMapper = objectMapper;
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    @RabbitListener(
+            queues = "${app.rabbitmq.payments.queue:payments.charge}",
+            containerFactory = "paymentsBatchListenerContainerFactory"
+    )
+    public void onMessages(List<Message> messages, Channel channel) throws IOException {
+        List<PaymentChargeRequested> parsed = new ArrayList<>(messages.size());
+        for (Message m : messages) {
+            parsed.add(parse(m));
+        }
+
+        List<Outcome> outcomes;
+        try {
+            outcomes = process(parsed);
+        } catch (RuntimeException ex) {
+            // Only the claim phase throws: nothing was reserved or charged yet.
+            log.error("payment batch claim failed, requeueing size={} error={}", messages.size(), ex.toString());
+            outcomes = parsed.stream().map(p -> p == null ? Outcome.REJECT : Outcome.REQUEUE).toList();
+        }
+
+        for (int i = 0; i < messages.size(); i++) {
+            long tag = messages.get(i).getMessageProperties().getDeliveryTag();
+            switch (outcomes.get(i)) {
+                case ACK -> channel.basicAck(tag, false);
+                case REQUEUE -> channel.basicNack(tag, false, true);
+                case REJECT -> channel.basicReject(tag, false);
+            }
+        }
+    }
+
+    /**
+     * Processes the batch and returns one outcome per message, in order.
+     * A null entry stands for an unreadable message.
+     *
+     * Throws only from the claim phase. Once a message is charged its attempt row is PENDING
+     * or finished, so a requeue can never charge it again.
+     */
+    List<Outcome> process(List<PaymentChargeRequested> msgs) {
+        List<Outcome> outcomes = new ArrayList<>(Collections.nCopies(msgs.size(), Outcome.ACK));
+        List<Claim> claims = tx.execute(status -> claim(msgs, outcomes));
+
+        List<Charged> charged = new ArrayList<>(claims.size());
+        List<UUID> unreserve = new ArrayList<>();
+        for (Claim claim : claims) {
+            try {
+                PaymentResult payment = paymentService.charge(claim.userId(), claim.plan(), claim.msg().amountCents());
+                charged.add(new Charged(claim, payment));
+            } catch (RuntimeException ex) {
+                // Nothing was charged: drop the reservation so the redelivery can charge.
+                unreserve.add(claim.attemptId());
+                outcomes.set(claim.index(), Outcome.REQUEUE);
+                log.warn("payment charge failed, requeueing subscriptionId={} error={}",
+                        claim.msg().subscriptionId(), ex.toString());
+            }
+        }
+
+        if (!unreserve.isEmpty()) {
+            try {
+                tx.executeWithoutResult(status -> attemptRepository.deleteAllById(unreserve));
+            } catch (RuntimeException ex) {
+                log.error("could not remove pending attempts of failed charges ids={} error={}", unreserve, ex.toString());
+            }
+        }
+
+        applyAll(charged, outcomes);
+        return outcomes;
+    }
+
+    private List<Claim> claim(List<PaymentChargeRequested> msgs, List<Outcome> outcomes) {
+        Set<UUID> ids = new TreeSet<>();
+        Set<LocalDate> cycles = new HashSet<>();
+        for (int i = 0; i < msgs.size(); i++) {
+            PaymentChargeRequested msg = msgs.get(i);
+            if (msg == null) {
+                outcomes.set(i, Outcome.REJECT);
+                continue;
+            }
+            ids.add(msg.subscriptionId());
+            cycles.add(msg.cycleExpirationDate());
+        }
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<UUID, SubscriptionEntity> locked = subscriptionRepository.lockAllByIdForUpdate(ids.toArray(UUID[]::new))
+                .stream()
+                .collect(Collectors.toMap(SubscriptionEntity::getId, Function.identity()));
+
+        Map<String, RenewalAttemptResult> recorded = attemptRepository.findBySubscriptionIdInAndCycleExpirationDateIn(ids, cycles)
+                .stream()
+                .collect(Collectors.toMap(
+                        a -> attemptKey(a.getSubscriptionId(), a.getCycleExpirationDate(), a.getAttemptNumber()),
+                        SubscriptionRenewalAttemptEntity::getResult));
+
+        Instant now = timeProvider.now();
+        Set<String> claimedKeys = new HashSet<>();
+        List<SubscriptionRenewalAttemptEntity> attempts = new ArrayList<>();
+        List<Integer> claimedIndexes = new ArrayList<>();
+        Set<UUID> claimedSubscriptions = new HashSet<>();
+
+        for (int i = 0; i < msgs.size(); i++) {
+            PaymentChargeRequested msg = msgs.get(i);
+            if (msg == null) {
+                continue;
+            }
+
+            SubscriptionEntity s = locked.get(msg.subscriptionId());
+            if (s == null) {
+                continue;
+            }
+
+            // No longer eligible (canceled, suspended, etc.): clear in-flight and stop.
+            if (s.getStatus() != SubscriptionStatus.ATIVA || !s.isAutoRenew()) {
+                s.setRenewalInFlightUntil(null);
+                subscriptionCache.refreshActive(s);
+                continue;
+            }
+
+            // Cycle already moved.
+            if (!s.getExpirationDate().equals(msg.cycleExpirationDate())) {
+                s.setRenewalInFlightUntil(null);
+                continue;
+            }
+
+            // Idempotency: already recorded, or duplicated inside this batch.
+            String key = attemptKey(s.getId(), msg.cycleExpirationDate(), msg.attemptNumber());
+            RenewalAttemptResult result = recorded.get(key);
+            if (result == RenewalAttemptResult.PENDING || claimedKeys.contains(key)) {
+                // Charged (or being charged) by another delivery; its apply releases the lease.
+                continue;
+            }
+            if (result != null) {
+                s.setRenewalInFlightUntil(null);
+                continue;
+            }
+
+            // Another attempt of the same subscription is charged in this batch; its result
+            // decides whether this one still applies.
+            if (!claimedSubscriptions.add(s.getId())) {
+                outcomes.set(i, Outcome.REQUEUE);
+                continue;
+            }
+            claimedKeys.add(key);
+
+            attempts.add(renewalAttemptApplier.pending(
+                    s, msg.cycleExpirationDate(), msg.attemptNumber(), msg.amountCents(), now));
+            s.setRenewalInFlightUntil(now.plus(PaymentChargeConsumer.CHARGE_LEASE));
+            claimedIndexes.add(i);
+        }
+
+        attemptRepository.saveAll(attempts);
+        // Locked subscriptions are managed: flush now so the claimed versions are the committed ones.
+        subscriptionRepository.flush();
+        renewalQueue.scheduleAll(locked.values());
+
+        List<Claim> claims = new ArrayList<>(attempts.size());
+        for (int c = 0; c < attempts.size(); c++) {
+            int i = claimedIndexes.get(c);
+            PaymentChargeRequested msg = msgs.get(i);
+            SubscriptionEntity s = locked.get(msg.subscriptionId());
+            claims.add(new Claim(i, msg, attempts.get(c).getId(), s.getUserId(), s.getPlan(), s.getVersion()));
+        }
+        return claims;
+    }
+
+    private void applyAll(List<Charged> charged, List<Outcome> outcomes) {
+        if (charged.isEmpty()) {
+            return;
+        }
+        try {
+            tx.executeWithoutResult(status -> apply(charged));
+            return;
+        } catch (RuntimeException ex) {
+            log.warn("payment batch apply failed, applying one by one size={} error={}", charged.size(), ex.toString());
+        }
+
+        for (Charged c : charged) {
+            try {
+                tx.executeWithoutResult(status -> apply(List.of(c)));
+            } catch (RuntimeException ex) {
+                // The attempt stays PENDING until the reconciler flags it; the message is acked.
+                log.error("payment result not recorded, attempt left pending subscriptionId={} attemptId={} approved={} error={}",
+                        c.claim().msg().subscriptionId(), c.claim().attemptId(), c.payment().isApproved(), ex.toString());
+            }
+        }
+    }
+
+    private void apply(List<Charged> charged) {
+        Set<UUID> ids = new TreeSet<>();
+        List<UUID> attemptIds = new ArrayList<>(charged.size());
+        for (Charged c : charged) {
+            ids.add(c.claim().msg().subscriptionId());
+            attemptIds.add(c.claim().attemptId());
+        }
+
+        Map<UUID, SubscriptionEntity> locked = subscriptionRepository.lockAllByIdForUpdate(ids.toArray(UUID[]::new))
+                .stream()
+                .collect(Collectors.toMap(SubscriptionEntity::getId, Function.identity()));
+        Map<UUID, SubscriptionRenewalAttemptEntity> attempts = attemptRepository.findAllById(attemptIds)
+                .stream()
+                .collect(Collectors.toMap(SubscriptionRenewalAttemptEntity::getId, Function.identity()));
+
+        Instant now = timeProvider.now();
+        for (Charged c : charged) {
+            PaymentChargeRequested msg = c.claim().msg();
+            SubscriptionEntity s = locked.get(msg.subscriptionId());
+            SubscriptionRenewalAttemptEntity attempt = attempts.get(c.claim().attemptId());
+            if (s == null || attempt == null || !PaymentChargeConsumer.awaitsResult(attempt)) {
+                log.warn("payment result has no pending attempt subscriptionId={} attemptNumber={} approved={}",
+                        msg.subscriptionId(), msg.attemptNumber(), c.payment().isApproved());
+                continue;
+            }
+
+            renewalAttemptApplier.recordResult(attempt, c.payment(), "async");
+
+            if (PaymentChargeConsumer.stillClaimed(s, c.claim().version(), msg.cycleExpirationDate())) {
+                renewalAttemptApplier.applyToSubscription(
+                        s, msg.cycleExpirationDate(), msg.attemptNumber(), c.payment(), now, "async");
+            } else {
+                s.setRenewalInFlightUntil(null);
+                billingMetrics.paymentChargeUnapplied(c.payment().isApproved());
+                log.warn("payment result recorded but not applied, subscription changed during the charge subscriptionId={} status={} expiration={} approved={}",
+                        s.getId(), s.getStatus(), s.getExpirationDate(), c.payment().isApproved());
+            }
+        }
+
+        // Locked subscriptions and loaded attempts are managed: their changes are flushed (batched) on commit.
+        renewalQueue.scheduleAll(locked.values());
+    }
+
+    private PaymentChargeRequested parse(Message m) {
+        try {
+            return objectMapper.readValue(m.getBody(), PaymentChargeRequested.class);
+        } catch (IOException ex) {
+            log.error("unreadable payment message deliveryTag={} error={}", m.getMessageProperties().getDeliveryTag(), ex.toString());
+            return null;
+        }
+    }
+
+    private static String attemptKey(UUID subscriptionId, LocalDate cycleExpirationDate, int attemptNumber) {
+        return subscriptionId + "|" + cycleExpirationDate + "|" + attemptNumber;
+    }
+
+    private record Claim(int index, PaymentChargeRequested msg, UUID attemptId, UUID userId, Plan plan, long version) {
+    }
+
+    private record Charged(Claim claim, PaymentResult payment) {
+    }
+}
@@ -5,26 +5,53 @@ import br.com.ricarte.assinaflow.metrics.BillingMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
-
+import java.util.UUID;
+
+/**
+ * Per-message consumer. Replaced by {@link PaymentChargeBatchConsumer} when
+ * app.rabbitmq.payments.batch.enabled=true.
+ *
+ * Three phases, so no database connection is held while the gateway is called:
+ * 1. claim: short transaction that locks the subscription, checks eligibility and cycle,
+ *    inserts the attempt (subscription, cycle, attemptNumber) as PENDING and extends the
+ *    in-flight lease. Any delivery that finds the attempt row already there stops before
+ *    charging, so a duplicate or redelivered message never charges twice.
+ * 2. charge: {@link PaymentService#charge} with no transaction open
+ * 3. apply: short transaction that always finishes the PENDING attempt with the result. The
+ *    subscription is only updated when it is still in the claimed state: same version, or
+ *    still active and on the same cycle if something else touched the row meanwhile.
+ *
+ * A charge that throws (throttled, profile lookup failed) charged nothing: the PENDING row is
+ * removed and the message is redelivered. If the apply transaction fails the message is acked
+ * anyway, since a redelivery would only skip the PENDING row; {@link PendingAttemptReconciler}
+ * flags the row once the lease is over.
+ */
 @Component
-@ConditionalOnProperty(name = "app.payments.async.enabled", havingValue = "true")
+@ConditionalOnExpression("${app.payments.async.enabled:false} and !${app.rabbitmq.payments.batch.enabled:false}")
 public class PaymentChargeConsumer {
 
     private static final Logger log = LoggerFactory.getLogger(PaymentChargeConsumer.class);
 
+    /** In-flight lease set by the claim; covers the charge and the apply phase. */
+    static final Duration CHARGE_LEASE = Duration.ofMinutes(10);
+
     private final SubscriptionRepository subscriptionRepository;
     private final SubscriptionRenewalAttemptRepository attemptRepository;
     private final PaymentService paymentService;
     private final TimeProvider timeProvider;
     private final SubscriptionCache subscriptionCache;
+    private final RenewalAttemptApplier renewalAttemptApplier;
+    private final RenewalQueue renewalQueue;
     private final BillingMetrics billingMetrics;
+    private final TransactionTemplate tx;
 
     public PaymentChargeConsumer(
             SubscriptionRepository subscriptionRepository,
@@ -32,117 +59,141 @@ public class PaymentChargeConsumer {
             PaymentService paymentService,
             TimeProvider timeProvider,
             SubscriptionCache subscriptionCache,
-            BillingMetrics billingMetrics
+            RenewalAttemptApplier renewalAttemptApplier,
+            RenewalQueue renewalQueue,
+            BillingMetrics billingMetrics,
+            PlatformTransactionManager transactionManager
     ) {
         this.subscriptionRepository = subscriptionRepository;
         this.attemptRepository = attemptRepository;
         this.paymentService = paymentService;
         this.timeProvider = timeProvider;
         this.subscriptionCache = subscriptionCache;
+        this.renewalAttemptApplier = renewalAttemptApplier;
+        this.renewalQueue = renewalQueue;
         this.billingMetrics = billingMetrics;
+        this.tx = new TransactionTemplate(transactionManager);
     }
 
     @RabbitListener(queues = "${app.rabbitmq.payments.queue:payments.charge}")
-    @Transactional
     public void onMessage(PaymentChargeRequested msg) {
+        Claim claim = tx.execute(status -> claim(msg));
+        if (claim == null) {
+            return;
+        }
+
+        PaymentResult payment;
+        try {
+            payment = paymentService.charge(claim.userId(), claim.plan(), msg.amountCents());
+        } catch (RuntimeException ex) {
+            // Nothing was charged: drop the reservation so the redelivery can charge.
+            tx.executeWithoutResult(status -> attemptRepository.deleteById(claim.attemptId()));
+            throw ex;
+        }
+
+        try {
+            tx.executeWithoutResult(status -> apply(msg, claim, payment));
+        } catch (RuntimeException ex) {
+            log.error("payment result not recorded, attempt left pending subscriptionId={} attemptId={} approved={} error={}",
+                    msg.subscriptionId(), claim.attemptId(), payment.isApproved(), ex.toString());
+        }
+    }
+
+    private Claim claim(PaymentChargeRequested msg) {
         SubscriptionEntity s = subscriptionRepository.findByIdForUpdate(msg.subscriptionId()).orElse(null);
         if (s == null) {
-            return;
+            return null;
         }
 
         // If subscription is no longer eligible (canceled, suspended, etc.), clear in-flight and stop.
         if (s.getStatus() != SubscriptionStatus.ATIVA || !s.isAutoRenew()) {
             s.setRenewalInFlightUntil(null);
             subscriptionRepository.save(s);
-            subscriptionCache.evictActive(s.getUserId());
-            return;
+            renewalQueue.schedule(s);
+            subscriptionCache.refreshActive(s);
+            return null;
         }
 
         // Guard: only process if cycle still matches
-        LocalDate currentCycleExpiration = s.getExpirationDate();
-        if (!currentCycleExpiration.equals(msg.cycleExpirationDate())) {
+        if (!s.getExpirationDate().equals(msg.cycleExpirationDate())) {
             s.setRenewalInFlightUntil(null);
             subscriptionRepository.save(s);
-            return;
+            renewalQueue.schedule(s);
+            return null;
         }
 
-        // Idempotency: if already processed, release in-flight and stop.
-        if (attemptRepository.existsBySubscriptionIdAndCycleExpirationDateAndAttemptNumber(
-                s.getId(), msg.cycleExpirationDate(), msg.attemptNumber())) {
+        // Idempotency: the attempt row is the reservation of this charge.
+        SubscriptionRenewalAttemptEntity existing = attemptRepository
+                .findBySubscriptionIdAndCycleExpirationDateAndAttemptNumber(
+                        s.getId(), msg.cycleExpirationDate(), msg.attemptNumber())
+                .orElse(null);
+        if (existing != null) {
+            if (existing.getResult() == RenewalAttemptResult.PENDING) {
+                // Charged (or being charged) by another delivery; its apply (or the reconciler) releases the lease.
+                log.warn("payment charge already pending, skipping subscriptionId={} cycle={} attemptNumber={} since={}",
+                        s.getId(), msg.cycleExpirationDate(), msg.attemptNumber(), existing.getAttemptedAt());
+                return null;
+            }
             s.setRenewalInFlightUntil(null);
             subscriptionRepository.save(s);
-            return;
+            renewalQueue.schedule(s);
+            return null;
         }
 
         Instant now = timeProvider.now();
-        int amountCents = msg.amountCents();
-
-        PaymentResult payment = paymentService.charge(s.getUserId(), amountCents);
-
-        SubscriptionRenewalAttemptEntity attempt = new SubscriptionRenewalAttemptEntity();
-        attempt.setSubscriptionId(s.getId());
-        attempt.setCycleExpirationDate(msg.cycleExpirationDate());
-        attempt.setAttemptNumber(msg.attemptNumber());
-        attempt.setAttemptedAt(now);
-        attempt.setAmountCents(amountCents);
-
-        if (payment.isApproved()) {
-            attempt.setResult(RenewalAttemptResult.SUCCESS);
-            attemptRepository.save(attempt);
-            billingMetrics.renewalAttempt(true, "async");
-
-            // Renewal: [start, expiration) -> move boundary
-            s.setStartDate(currentCycleExpiration);
-            s.setExpirationDate(currentCycleExpiration.plusMonths(1));
-            s.setRenewalFailures(0);
-            s.setNextRenewalAttemptAt(null);
-            s.setRenewalInFlightUntil(null);
+        SubscriptionRenewalAttemptEntity attempt = attemptRepository.save(renewalAttemptApplier.pending(
+                s, msg.cycleExpirationDate(), msg.attemptNumber(), msg.amountCents(), now));
 
-            subscriptionRepository.save(s);
-            subscriptionCache.evictActive(s.getUserId());
+        s.setRenewalInFlightUntil(now.plus(CHARGE_LEASE));
+        subscriptionRepository.saveAndFlush(s);
+        renewalQueue.schedule(s);
+
+        return new Claim(attempt.getId(), s.getUserId(), s.getPlan(), s.getVersion());
+    }
 
-            log.info("payment approved -> renewed subscriptionId={} userId={} newExpiration={}", s.getId(), s.getUserId(), s.getExpirationDate());
+    private void apply(PaymentChargeRequested msg, Claim claim, PaymentResult payment) {
+        SubscriptionEntity s = subscriptionRepository.findByIdForUpdate(msg.subscriptionId()).orElse(null);
+        SubscriptionRenewalAttemptEntity attempt = attemptRepository.findById(claim.attemptId()).orElse(null);
+        if (s == null || attempt == null || !awaitsResult(attempt)) {
+            log.warn("payment result has no pending attempt subscriptionId={} attemptNumber={} approved={}",
+                    msg.subscriptionId(), msg.attemptNumber(), payment.isApproved());
             return;
         }
 
-        attempt.setResult(RenewalAttemptResult.FAILURE);
-        attempt.setErrorCode(payment.errorCode());
-        attempt.setErrorMessage(payment.errorMessage());
-        attemptRepository.save(attempt);
-        billingMetrics.renewalAttempt(false, "async");
-
-        int attemptNumber = msg.attemptNumber();
-        s.setRenewalFailures(attemptNumber);
+        renewalAttemptApplier.recordResult(attempt, payment, "async");
 
-        if (attemptNumber >= 3) {
-            s.setStatus(SubscriptionStatus.SUSPENSA);
-            s.setAutoRenew(false);
-            s.setNextRenewalAttemptAt(null);
-            s.setSuspendedAt(now);
+        if (stillClaimed(s, claim.version(), msg.cycleExpirationDate())) {
+            renewalAttemptApplier.applyToSubscription(
+                    s, msg.cycleExpirationDate(), msg.attemptNumber(), payment, timeProvider.now(), "async");
+        } else {
             s.setRenewalInFlightUntil(null);
-            subscriptionRepository.save(s);
-            subscriptionCache.evictActive(s.getUserId());
-            billingMetrics.subscriptionSuspended("async");
-
-            log.warn("payment declined 3x -> suspended subscriptionId={} userId={}", s.getId(), s.getUserId());
-            return;
+            billingMetrics.paymentChargeUnapplied(payment.isApproved());
+            log.warn("payment result recorded but not applied, subscription changed during the charge subscriptionId={} status={} expiration={} approved={}",
+                    s.getId(), s.getStatus(), s.getExpirationDate(), payment.isApproved());
         }
-
-        Duration backoff = backoffForAttempt(attemptNumber);
-        s.setNextRenewalAttemptAt(now.plus(backoff));
-        s.setRenewalInFlightUntil(null);
+        attemptRepository.save(attempt);
         subscriptionRepository.save(s);
-        subscriptionCache.evictActive(s.getUserId());
+        renewalQueue.schedule(s);
+    }
 
-        log.info("payment declined subscriptionId={} userId={} attempt={} nextAttemptAt={}",
-                s.getId(), s.getUserId(), attemptNumber, s.getNextRenewalAttemptAt());
+    /**
+     * PENDING, or already flagged UNKNOWN by {@link PendingAttemptReconciler} when the result
+     * arrives late; the reconciler suspended the subscription, so the result is only recorded.
+     */
+    static boolean awaitsResult(SubscriptionRenewalAttemptEntity attempt) {
+        return attempt.getResult() == RenewalAttemptResult.PENDING || attempt.getResult() == RenewalAttemptResult.UNKNOWN;
+    }
+
+    /** Whether a charge claimed at claimedVersion may still update the subscription. */
+    static boolean stillClaimed(SubscriptionEntity s, long claimedVersion, LocalDate cycleExpirationDate) {
+        if (s.getVersion() == claimedVersion) {
+            return true;
+        }
+        return s.getStatus() == SubscriptionStatus.ATIVA
+                && s.isAutoRenew()
+                && s.getExpirationDate().equals(cycleExpirationDate);
     }
 
-    private static Duration backoffForAttempt(int attemptNumber) {
-        return switch (attemptNumber) {
-            case 1 -> Duration.ofMinutes(15);
-            case 2 -> Duration.ofMinutes(60);
-            default -> Duration.ZERO;
-        };
+    private record Claim(UUID attemptId, UUID userId, Plan plan, long version) {
     }
 }
@@ -0,0 +1,23 @@
+package br.com.ricarte.assinaflow.subscription;
+
+/**
+ * Token bucket store behind {@link PaymentThrottle}. The default is one bucket per key in
+ * this JVM ({@link LocalPaymentRateLimiter}); {@link RedisPaymentRateLimiter} shares the
+ * buckets across instances. Register another implementation as a bean to plug in a different
+ * store.
+ */
+public interface PaymentRateLimiter {
+
+    /**
+     * Takes one token from bucket, refilled at permitsPerSecond up to burst tokens.
+     *
+     * @return 0 when the token was taken, otherwise the nanoseconds until one is available
+     */
+    long tryAcquire(String bucket, double permitsPerSecond, int burst);
+
+    /**
+     * Tokens currently in bucket (after refill), without taking any. May be fractional; below
+     * 1 means the next tryAcquire would have to wait.
+     */
+    double available(String bucket, double permitsPerSecond, int burst);
+}
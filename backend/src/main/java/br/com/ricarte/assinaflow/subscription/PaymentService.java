@@ -6,6 +6,8 @@ import br.com.ricarte.assinaflow.user.PaymentProfileEntity;
 import br.com.ricarte.assinaflow.user.PaymentProfileRepository;
 import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Optional;
 import java.util.UUID;
@@ -15,52 +17,84 @@ public class PaymentService {
 
     private final PaymentProfileRepository paymentProfileRepository;
     private final BillingMetrics billingMetrics;
+    private final PaymentThrottle paymentThrottle;
+    private final TransactionTemplate tx;
 
-    public PaymentService(PaymentProfileRepository paymentProfileRepository, BillingMetrics billingMetrics) {
+    public PaymentService(
+            PaymentProfileRepository paymentProfileRepository,
+            BillingMetrics billingMetrics,
+            PaymentThrottle paymentThrottle,
+            PlatformTransactionManager transactionManager
+    ) {
         this.paymentProfileRepository = paymentProfileRepository;
         this.billingMetrics = billingMetrics;
+        this.paymentThrottle = paymentThrottle;
+        this.tx = new TransactionTemplate(transactionManager);
     }
 
     /**
      * Deterministic payment simulation based on user's payment profile.
-     * Safe to call inside a DB transaction; the profile row is locked for update.
+     * The profile row is locked for update: inside the caller's transaction when there is one,
+     * otherwise in a short transaction of its own (the throttle wait stays outside it).
+     *
+     * Goes through {@link PaymentThrottle} first (plan selects the bucket), so it may block
+     * and may throw {@link PaymentThrottledException} without charging.
      */
-    public PaymentResult charge(UUID userId, int amountCents) {
-        Timer.Sample sample = billingMetrics.startPaymentTimer();
-        boolean approved = false;
+    public PaymentResult charge(UUID userId, Plan plan, int amountCents) {
+        return charge(userId, paymentThrottle.acquire(plan));
+    }
 
-        try {
-            PaymentProfileEntity profile = paymentProfileRepository.findByUserIdForUpdate(userId).orElse(null);
+    /**
+     * Same as {@link #charge(UUID, Plan, int)} without waiting for the throttle: for callers
+     * holding row locks, which wait in {@link PaymentThrottle#awaitTokens(int)} before their
+     * transaction. Throws {@link PaymentThrottledException} at once when no permit is free.
+     */
+    public PaymentResult tryCharge(UUID userId, Plan plan, int amountCents) {
+        return charge(userId, paymentThrottle.tryAcquire(plan));
+    }
 
-            // Safe default: approve if no profile exists.
-            if (profile == null) {
-                PaymentResult res = PaymentResult.approved();
-                approved = true;
-                return res;
+    private PaymentResult charge(UUID userId, PaymentThrottle.Permit permit) {
+        try (PaymentThrottle.Permit ignored = permit) {
+            Timer.Sample sample = billingMetrics.startPaymentTimer();
+            boolean approved = false;
+
+            try {
+                PaymentResult result = tx.execute(status ->
+                        decide(paymentProfileRepository.findByUserIdForUpdate(userId).orElse(null)));
+                approved = result.isApproved();
+                return result;
+            } finally {
+                billingMetrics.stopPaymentTimer(sample, approved);
             }
+        }
+    }
 
-            PaymentBehavior behavior = Optional.ofNullable(profile.getBehavior()).orElse(PaymentBehavior.ALWAYS_APPROVE);
+    /**
+     * Decision part of {@link #charge(UUID, Plan, int)}, free of I/O. FAIL_NEXT_N consumes one
+     * failure from the (locked) profile.
+     */
+    static PaymentResult decide(PaymentProfileEntity profile) {
+        // Safe default: approve if no profile exists.
+        if (profile == null) {
+            return PaymentResult.approved();
+        }
 
-            PaymentResult result = switch (behavior) {
-                case ALWAYS_APPROVE -> PaymentResult.approved();
-                case ALWAYS_DECLINE -> PaymentResult.declined("PAYMENT_DECLINED", "Pagamento recusado (simulado)");
-                case FAIL_NEXT_N -> {
-                    int remaining = profile.getFailNextN();
-                    if (remaining > 0) {
-                        profile.setFailNextN(remaining - 1);
-                        yield PaymentResult.declined(
-                                "PAYMENT_DECLINED",
-                                "Pagamento recusado (simulado), failNextN restante=" + (remaining - 1)
-                        );
-                    }
-                    yield PaymentResult.approved();
-                }
-            };
+        PaymentBehavior behavior = Optional.ofNullable(profile.getBehavior()).orElse(PaymentBehavior.ALWAYS_APPROVE);
 
-            approved = result.isApproved();
-            return result;
-        } finally {
-            billingMetrics.stopPaymentTimer(sample, approved);
-        }
+        return switch (behavior) {
+            case ALWAYS_APPROVE -> PaymentResult.approved();
+            case ALWAYS_DECLINE -> PaymentResult.declined("PAYMENT_DECLINED", "Pagamento recusado (simulado)");
+            case FAIL_NEXT_N -> {
+                int remaining = profile.getFailNextN();
+                if (remaining > 0) {
+                    profile.setFailNextN(remaining - 1);
+                    yield PaymentResult.declined(
+                            "PAYMENT_DECLINED",
+                            "Pagamento recusado (simulado), failNextN restante=" + (remaining - 1)
+                    );
+                }
+                yield PaymentResult.approved();
+            }
+        };
     }
 }
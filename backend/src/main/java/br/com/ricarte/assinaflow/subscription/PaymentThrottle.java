@@ -0,0 +1,192 @@
+package br.com.ricarte.assinaflow.subscription;
+
+import br.com.ricarte.assinaflow.metrics.BillingMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Throughput governor in front of the payment gateway (app.payments.throttle.*).
+ *
+ * A charge first takes a token from its bucket, then one of maxConcurrent in-flight slots.
+ * - Buckets: plans listed in planRates ("PREMIUM=20,BASICO=100", charges/sec) get their own
+ *   bucket; every other plan shares the "default" bucket of ratePerSecond. burst tokens can be
+ *   spent at once after an idle period.
+ * - The bucket store is a {@link PaymentRateLimiter}: local by default, shared through Redis
+ *   with app.payments.throttle.redis.enabled. The concurrency cap is per instance.
+ * - {@link #acquire(Plan)} waits at most maxWaitMs in total; after that
+ *   {@link PaymentThrottledException} is thrown and nothing is charged. It is meant for
+ *   callers without a transaction open (async consumer).
+ * - Callers that charge while holding row locks wait in {@link #awaitTokens(int)} before
+ *   opening their transaction and then use {@link #tryAcquire(Plan)}, which never waits.
+ *
+ * The wait is recorded as payment_throttle_wait (tags bucket, throttled).
+ */
+@Component
+public class PaymentThrottle {
+
+    static final String DEFAULT_BUCKET = "default";
+
+    /** Returned when throttling is off; releasing it is a no-op. */
+    private static final Permit UNLIMITED = () -> { };
+
+    private final PaymentRateLimiter rateLimiter;
+    private final BillingMetrics billingMetrics;
+
+    private final boolean enabled;
+    private final double ratePerSecond;
+    private final int burst;
+    private final long maxWaitNanos;
+    private final Map<String, Double> planRates;
+    private final Semaphore inFlight;
+
+    public PaymentThrottle(
+            PaymentRateLimiter rateLimiter,
+            BillingMetrics billingMetrics,
+            @Value("${app.payments.throttle.enabled:false}") boolean enabled,
+            @Value("${app.payments.throttle.ratePerSecond:50}") double ratePerSecond,
+            @Value("${app.payments.throttle.burst:50}") int burst,
+            @Value("${app.payments.throttle.maxConcurrent:20}") int maxConcurrent,
+            @Value("${app.payments.throttle.maxWaitMs:2000}") long maxWaitMs,
+            @Value("${app.payments.throttle.planRates:}") String planRates
+    ) {
+        this.rateLimiter = rateLimiter;
+        this.billingMetrics = billingMetrics;
+        this.enabled = enabled;
+        this.ratePerSecond = ratePerSecond > 0 ? ratePerSecond : 1;
+        this.burst = Math.max(1, burst);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxWaitMs));
+        this.planRates = parsePlanRates(planRates);
+        this.inFlight = new Semaphore(Math.max(1, maxConcurrent), true);
+    }
+
+    /**
+     * Blocks until the charge may go to the gateway. The returned permit holds an in-flight
+     * slot and must be closed once the gateway call returns.
+     */
+    public Permit acquire(Plan plan) {
+        return acquire(plan, maxWaitNanos);
+    }
+
+    /**
+     * Same as {@link #acquire(Plan)} without waiting: throws {@link PaymentThrottledException}
+     * (retryAfter = time until the next token) when no token or in-flight slot is free now.
+     */
+    public Permit tryAcquire(Plan plan) {
+        return acquire(plan, 0);
+    }
+
+    /**
+     * Waits, at most maxWaitMs, until the shared bucket has a token, without taking it. Call it
+     * before opening a transaction that will charge with {@link #tryAcquire(Plan)}, so the wait
+     * never holds row locks or a connection, and size the claim with the result.
+     *
+     * Returns how many charges the shared bucket can take now, capped at wanted (wanted when
+     * throttling is off), or 0 if the wait ran out or was interrupted. Tokens are not reserved:
+     * concurrent workers may still find the bucket empty and have to defer rows. Plans with
+     * their own bucket are only checked by tryAcquire.
+     */
+    public int awaitTokens(int wanted) {
+        if (!enabled || wanted <= 0) {
+            return Math.max(0, wanted);
+        }
+
+        long deadline = System.nanoTime() + maxWaitNanos;
+        while (true) {
+            double available = rateLimiter.available(DEFAULT_BUCKET, ratePerSecond, burst);
+            if (available >= 1) {
+                return (int) Math.min(wanted, Math.floor(available));
+            }
+            long wait = (long) Math.ceil((1 - available) * TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+            if (wait > deadline - System.nanoTime()) {
+                return 0;
+            }
+            LockSupport.parkNanos(wait);
+            if (Thread.currentThread().isInterrupted()) {
+                return 0;
+            }
+        }
+    }
+
+    private Permit acquire(Plan plan, long maxWait) {
+        if (!enabled) {
+            return UNLIMITED;
+        }
+
+        String bucket = bucket(plan);
+        double rate = planRates.getOrDefault(bucket, ratePerSecond);
+        long started = System.nanoTime();
+        long deadline = started + maxWait;
+
+        while (true) {
+            long wait = rateLimiter.tryAcquire(bucket, rate, burst);
+            if (wait == 0) {
+                break;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (wait > remaining) {
+                throw throttled(bucket, started, wait);
+            }
+            LockSupport.parkNanos(wait);
+            if (Thread.currentThread().isInterrupted()) {
+                throw throttled(bucket, started, wait);
+            }
+        }
+
+        try {
+            if (!inFlight.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                throw throttled(bucket, started, TimeUnit.MILLISECONDS.toNanos(100));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw throttled(bucket, started, 0);
+        }
+
+        billingMetrics.paymentThrottleWait(bucket, false, System.nanoTime() - started);
+        return inFlight::release;
+    }
+
+    String bucket(Plan plan) {
+        return plan != null && planRates.containsKey(plan.name()) ? plan.name() : DEFAULT_BUCKET;
+    }
+
+    private PaymentThrottledException throttled(String bucket, long started, long retryAfterNanos) {
+        billingMetrics.paymentThrottleWait(bucket, true, System.nanoTime() - started);
+        return new PaymentThrottledException(bucket, Duration.ofNanos(retryAfterNanos));
+    }
+
+    /** Parses "PLAN=rate,PLAN=rate"; blank means no per-plan buckets. */
+    static Map<String, Double> parsePlanRates(String spec) {
+        Map<String, Double> rates = new HashMap<>();
+        if (spec == null || spec.isBlank()) {
+            return rates;
+        }
+        for (String entry : spec.split(",")) {
+            String[] kv = entry.split("=", 2);
+            if (kv.length != 2) {
+                throw new IllegalArgumentException("app.payments.throttle.planRates: invalid entry '" + entry + "'");
+            }
+            String plan = Plan.valueOf(kv[0].strip().toUpperCase(Locale.ROOT)).name();
+            double rate = Double.parseDouble(kv[1].strip());
+            if (rate <= 0) {
+                throw new IllegalArgumentException("app.payments.throttle.planRates: rate must be positive for " + plan);
+            }
+            rates.put(plan, rate);
+        }
+        return rates;
+    }
+
+    /** In-flight slot of one charge. */
+    @FunctionalInterface
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,30 @@
+package br.com.ricarte.assinaflow.subscription;
+
+import java.time.Duration;
+
+/**
+ * The charge was not sent: no gateway permit became available within the throttle's maximum
+ * wait. Nothing was charged, so callers must not count it as a failed attempt.
+ *
+ * Expected under load and never logged with a trace, so the stack trace is not filled in.
+ */
+public class PaymentThrottledException extends RuntimeException {
+
+    private final String bucket;
+    private final Duration retryAfter;
+
+    public PaymentThrottledException(String bucket, Duration retryAfter) {
+        super("payment throttled bucket=" + bucket + " retryAfter=" + retryAfter, null, false, false);
+        this.bucket = bucket;
+        this.retryAfter = retryAfter;
+    }
+
+    public String getBucket() {
+        return bucket;
+    }
+
+    /** Estimated wait until the bucket has a token again. */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,129 @@
+package br.com.ricarte.assinaflow.subscription;
+
+import br.com.ricarte.assinaflow.common.time.TimeProvider;
+import br.com.ricarte.assinaflow.metrics.BillingMetrics;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resolves attempts the async consumers left PENDING past {@link PaymentChargeConsumer#CHARGE_LEASE}.
+ *
+ * Such a row means the gateway may have been called but its result was never applied (the
+ * apply transaction failed or the instance died). Redeliveries skip it and the scheduler only
+ * renews the in-flight lease, so without this sweep the subscription would never move again.
+ *
+ * The outcome cannot be recovered here: retrying could charge twice and renewing could give
+ * an unpaid month. So each stale attempt is marked UNKNOWN (renewal_attempt_unresolved_total)
+ * and, if the subscription is still active on that cycle, it is suspended for manual review.
+ * renewal_attempts_pending_stale shows how many stale rows were left after the last sweep.
+ */
+@Component
+public class PendingAttemptReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(PendingAttemptReconciler.class);
+
+    static final String UNKNOWN_ERROR_CODE = "PAYMENT_OUTCOME_UNKNOWN";
+
+    private final SubscriptionRenewalAttemptRepository attemptRepository;
+    private final SubscriptionRepository subscriptionRepository;
+    private final SubscriptionCache subscriptionCache;
+    private final RenewalQueue renewalQueue;
+    private final TimeProvider timeProvider;
+    private final BillingMetrics billingMetrics;
+    private final TransactionTemplate tx;
+    private final int batchSize;
+
+    private final AtomicLong stalePending = new AtomicLong();
+
+    public PendingAttemptReconciler(
+            SubscriptionRenewalAttemptRepository attemptRepository,
+            SubscriptionRepository subscriptionRepository,
+            SubscriptionCache subscriptionCache,
+            RenewalQueue renewalQueue,
+            TimeProvider timeProvider,
+            BillingMetrics billingMetrics,
+            MeterRegistry registry,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.renewal.reconcile.batchSize:100}") int batchSize
+    ) {
+        this.attemptRepository = attemptRepository;
+        this.subscriptionRepository = subscriptionRepository;
+        this.subscriptionCache = subscriptionCache;
+        this.renewalQueue = renewalQueue;
+        this.timeProvider = timeProvider;
+        this.billingMetrics = billingMetrics;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+
+        Gauge.builder("renewal_attempts_pending_stale", stalePending, AtomicLong::get)
+                .description("PENDING renewal attempts older than the charge lease at the last sweep")
+                .register(registry);
+    }
+
+    /**
+     * Flags stale PENDING attempts, one transaction per batch, until none are left.
+     * Returns the number of attempts flagged.
+     */
+    public int reconcile() {
+        int flagged = 0;
+        while (true) {
+            Integer done = tx.execute(status -> reconcileBatch());
+            if (done == null || done == 0) {
+                break;
+            }
+            flagged += done;
+            if (done < batchSize) {
+                break;
+            }
+        }
+        stalePending.set(attemptRepository.countStalePending(cutoff()));
+        return flagged;
+    }
+
+    private int reconcileBatch() {
+        List<SubscriptionRenewalAttemptEntity> stale = attemptRepository.lockStalePending(cutoff(), batchSize);
+        Instant now = timeProvider.now();
+
+        for (SubscriptionRenewalAttemptEntity attempt : stale) {
+            attempt.setResult(RenewalAttemptResult.UNKNOWN);
+            attempt.setErrorCode(UNKNOWN_ERROR_CODE);
+            attempt.setErrorMessage("Resultado da cobranca nao confirmado; revisar manualmente");
+            billingMetrics.renewalAttemptUnresolved();
+
+            SubscriptionEntity s = subscriptionRepository.findByIdForUpdate(attempt.getSubscriptionId()).orElse(null);
+            if (s == null) {
+                continue;
+            }
+
+            s.setRenewalInFlightUntil(null);
+            if (s.getStatus() == SubscriptionStatus.ATIVA && s.getExpirationDate().equals(attempt.getCycleExpirationDate())) {
+                s.setStatus(SubscriptionStatus.SUSPENSA);
+                s.setAutoRenew(false);
+                s.setNextRenewalAttemptAt(null);
+                s.setSuspendedAt(now);
+                subscriptionCache.evictActive(s.getUserId());
+                billingMetrics.subscriptionSuspended("reconcile");
+            }
+            subscriptionRepository.save(s);
+            renewalQueue.schedule(s);
+
+            log.error("renewal attempt left pending, flagged for manual review subscriptionId={} cycle={} attemptNumber={} attemptedAt={} status={}",
+                    s.getId(), attempt.getCycleExpirationDate(), attempt.getAttemptNumber(), attempt.getAttemptedAt(), s.getStatus());
+        }
+        return stale.size();
+    }
+
+    private Instant cutoff() {
+        return timeProvider.now().minus(PaymentChargeConsumer.CHARGE_LEASE);
+    }
+}
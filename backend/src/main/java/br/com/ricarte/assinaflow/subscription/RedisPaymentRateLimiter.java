@@ -0,0 +1,103 @@
+package br.com.ricarte.assinaflow.subscription;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Token buckets shared by every instance through Redis. Each bucket is a hash (tokens, ts)
+ * updated by one Lua script, using the Redis clock, so the refill is atomic and immune to
+ * clock skew between instances. Idle buckets expire once they would be full again.
+ *
+ * If Redis is unavailable the call falls back to the local buckets: the limit becomes per
+ * instance for the duration of the outage instead of blocking every charge.
+ */
+public class RedisPaymentRateLimiter implements PaymentRateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisPaymentRateLimiter.class);
+
+    /** Returns 0 when a token was taken, otherwise the wait in microseconds. */
+    private static final RedisScript<Long> TAKE_TOKEN = new DefaultRedisScript<>("""
+            local rate = tonumber(ARGV[1])
+            local burst = tonumber(ARGV[2])
+            local t = redis.call('TIME')
+            local now = tonumber(t[1]) * 1000000 + tonumber(t[2])
+            local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+            local tokens = tonumber(state[1]) or burst
+            local ts = tonumber(state[2]) or now
+            if now > ts then
+              tokens = math.min(burst, tokens + (now - ts) * rate / 1000000)
+            end
+            local wait = 0
+            if tokens >= 1 then
+              tokens = tokens - 1
+            else
+              wait = math.ceil((1 - tokens) * 1000000 / rate)
+            end
+            redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(now))
+            redis.call('PEXPIRE', KEYS[1], math.ceil(burst * 1000 / rate) + 1000)
+            return wait
+            """, Long.class);
+
+    /** Tokens in the bucket after refill, as a string (Lua numbers reply as integers); read-only. */
+    private static final RedisScript<String> AVAILABLE = new DefaultRedisScript<>("""
+            local rate = tonumber(ARGV[1])
+            local burst = tonumber(ARGV[2])
+            local t = redis.call('TIME')
+            local now = tonumber(t[1]) * 1000000 + tonumber(t[2])
+            local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+            local tokens = tonumber(state[1]) or burst
+            local ts = tonumber(state[2]) or now
+            if now > ts then
+              tokens = math.min(burst, tokens + (now - ts) * rate / 1000000)
+            end
+            return tostring(tokens)
+            """, String.class);
+
+    private final StringRedisTemplate redis;
+    private final String keyPrefix;
+    private final PaymentRateLimiter fallback;
+
+    private final AtomicBoolean degraded = new AtomicBoolean(false);
+
+    public RedisPaymentRateLimiter(StringRedisTemplate redis, String keyPrefix, PaymentRateLimiter fallback) {
+        this.redis = redis;
+        this.keyPrefix = keyPrefix;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public long tryAcquire(String bucket, double permitsPerSecond, int burst) {
+        try {
+            Long waitMicros = redis.execute(TAKE_TOKEN, List.of(keyPrefix + bucket),
+                    String.valueOf(permitsPerSecond), String.valueOf(burst));
+            if (degraded.compareAndSet(true, false)) {
+                log.info("payment rate limiter back on redis");
+            }
+            return waitMicros == null ? 0 : TimeUnit.MICROSECONDS.toNanos(waitMicros);
+        } catch (DataAccessException e) {
+            if (degraded.compareAndSet(false, true)) {
+                log.warn("payment rate limiter falling back to local buckets error={}", e.toString());
+            }
+            return fallback.tryAcquire(bucket, permitsPerSecond, burst);
+        }
+    }
+
+    @Override
+    public double available(String bucket, double permitsPerSecond, int burst) {
+        try {
+            String tokens = redis.execute(AVAILABLE, List.of(keyPrefix + bucket),
+                    String.valueOf(permitsPerSecond), String.valueOf(burst));
+            return tokens == null ? burst : Double.parseDouble(tokens);
+        } catch (DataAccessException e) {
+            return fallback.available(bucket, permitsPerSecond, burst);
+        }
+    }
+}
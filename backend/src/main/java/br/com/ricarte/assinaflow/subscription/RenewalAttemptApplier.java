@@ -0,0 +1,142 @@
+package br.com.ricarte.assinaflow.subscription;
+
+import br.com.ricarte.assinaflow.metrics.BillingMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Applies the result of a renewal charge to a locked subscription.
+ *
+ * Shared by the sync renewal path and the async consumers so the retry/suspension rules
+ * live in one place:
+ * - approved: [start, expiration) moves one month ahead
+ * - declined 1x/2x: next attempt in +15/+60 min
+ * - declined 3x: SUSPENSA, autoRenew false
+ *
+ * Callers own the transaction and persist both the subscription and the returned attempt.
+ *
+ * The async consumer splits this in two: {@link #pending} reserves the attempt row before
+ * the charge, {@link #recordResult} finishes it and {@link #applyToSubscription} updates the
+ * subscription, only when it is still in the state the charge was claimed for.
+ */
+@Component
+class RenewalAttemptApplier {
+
+    private static final Logger log = LoggerFactory.getLogger(RenewalAttemptApplier.class);
+
+    static final int MAX_ATTEMPTS = 3;
+
+    private final SubscriptionCache subscriptionCache;
+    private final BillingMetrics billingMetrics;
+
+    RenewalAttemptApplier(SubscriptionCache subscriptionCache, BillingMetrics billingMetrics) {
+        this.subscriptionCache = subscriptionCache;
+        this.billingMetrics = billingMetrics;
+    }
+
+    SubscriptionRenewalAttemptEntity apply(
+            SubscriptionEntity s,
+            LocalDate cycleExpiration,
+            int attemptNumber,
+            int amountCents,
+            PaymentResult payment,
+            Instant now,
+            String mode
+    ) {
+        SubscriptionRenewalAttemptEntity attempt = pending(s, cycleExpiration, attemptNumber, amountCents, now);
+        recordResult(attempt, payment, mode);
+        applyToSubscription(s, cycleExpiration, attemptNumber, payment, now, mode);
+        return attempt;
+    }
+
+    /** Attempt row reserved before the charge (result PENDING); its key makes duplicates fail fast. */
+    SubscriptionRenewalAttemptEntity pending(
+            SubscriptionEntity s,
+            LocalDate cycleExpiration,
+            int attemptNumber,
+            int amountCents,
+            Instant now
+    ) {
+        SubscriptionRenewalAttemptEntity attempt = new SubscriptionRenewalAttemptEntity();
+        attempt.setSubscriptionId(s.getId());
+        attempt.setCycleExpirationDate(cycleExpiration);
+        attempt.setAttemptNumber(attemptNumber);
+        attempt.setAttemptedAt(now);
+        attempt.setAmountCents(amountCents);
+        attempt.setResult(RenewalAttemptResult.PENDING);
+        return attempt;
+    }
+
+    /** Writes the gateway result on the attempt. */
+    void recordResult(SubscriptionRenewalAttemptEntity attempt, PaymentResult payment, String mode) {
+        billingMetrics.renewalAttempt(payment.isApproved(), mode);
+        if (payment.isApproved()) {
+            attempt.setResult(RenewalAttemptResult.SUCCESS);
+            attempt.setErrorCode(null);
+            attempt.setErrorMessage(null);
+            return;
+        }
+        attempt.setResult(RenewalAttemptResult.FAILURE);
+        attempt.setErrorCode(payment.errorCode());
+        attempt.setErrorMessage(payment.errorMessage());
+    }
+
+    /** Renews, schedules the retry or suspends the subscription according to the result. */
+    void applyToSubscription(
+            SubscriptionEntity s,
+            LocalDate cycleExpiration,
+            int attemptNumber,
+            PaymentResult payment,
+            Instant now,
+            String mode
+    ) {
+        if (payment.isApproved()) {
+            s.setStartDate(cycleExpiration);
+            s.setExpirationDate(cycleExpiration.plusMonths(1));
+            s.setRenewalFailures(0);
+            s.setNextRenewalAttemptAt(null);
+            s.setStatus(SubscriptionStatus.ATIVA);
+            s.setRenewalInFlightUntil(null);
+            subscriptionCache.refreshActive(s);
+
+            log.info("renewal success mode={} subscriptionId={} userId={} newExpiration={}",
+                    mode, s.getId(), s.getUserId(), s.getExpirationDate());
+            return;
+        }
+
+        s.setRenewalFailures(attemptNumber);
+        s.setRenewalInFlightUntil(null);
+
+        if (attemptNumber >= MAX_ATTEMPTS) {
+            s.setStatus(SubscriptionStatus.SUSPENSA);
+            s.setAutoRenew(false);
+            s.setNextRenewalAttemptAt(null);
+            s.setSuspendedAt(now);
+            subscriptionCache.evictActive(s.getUserId());
+            billingMetrics.subscriptionSuspended(mode);
+
+            log.warn("renewal failed {}x -> suspended mode={} subscriptionId={} userId={}",
+                    MAX_ATTEMPTS, mode, s.getId(), s.getUserId());
+            return;
+        }
+
+        s.setNextRenewalAttemptAt(now.plus(backoffForAttempt(attemptNumber)));
+        subscriptionCache.refreshActive(s);
+
+        log.info("renewal failed mode={} subscriptionId={} userId={} attempt={} nextAttemptAt={}",
+                mode, s.getId(), s.getUserId(), attemptNumber, s.getNextRenewalAttemptAt());
+    }
+
+    private static Duration backoffForAttempt(int attemptNumber) {
+        return switch (attemptNumber) {
+            case 1 -> Duration.ofMinutes(15);
+            case 2 -> Duration.ofMinutes(60);
+            default -> Duration.ZERO;
+        };
+    }
+}
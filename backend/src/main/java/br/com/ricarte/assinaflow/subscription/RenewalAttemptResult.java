@@ -1,6 +1,13 @@
 package br.com.ricarte.assinaflow.subscription;
 
 public enum RenewalAttemptResult {
+    /** Reserved by the async consumer before the charge; finished once the result is applied. */
+    PENDING,
     SUCCESS,
-    FAILURE
+    FAILURE,
+    /**
+     * Left PENDING past the charge lease (apply failed or the instance died after charging):
+     * the gateway outcome is unknown, set by {@link PendingAttemptReconciler} for manual review.
+     */
+    UNKNOWN
 }
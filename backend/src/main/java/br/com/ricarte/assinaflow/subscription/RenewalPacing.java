@@ -0,0 +1,110 @@
+package br.com.ricarte.assinaflow.subscription;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Spreads the billing day instead of releasing every due renewal at 00:00 UTC.
+ *
+ * With app.renewal.pacing.enabled each subscription gets a fixed offset inside the first
+ * windowMinutes of its expiration day, taken from the low 32 bits of its id (ids are random
+ * UUIDs, so the offsets are uniform). A renewal is only claimed once its offset has passed;
+ * the billing date itself does not change. The window should leave room before midnight for
+ * the retry backoff (+15 and +60 minutes), since the claim only matches expiration_date = today.
+ *
+ * The claim queries in {@link SubscriptionRepository} compute the same offset in SQL as
+ * {@code ('x' || right(id::text, 8))::bit(32)::bigint % :paceWindow}; both must stay in sync.
+ *
+ * chargesPerSecond additionally caps how fast this instance releases claimed work, shared by
+ * all renewal workers (0 = unlimited).
+ */
+@Component
+public class RenewalPacing {
+
+    private final boolean enabled;
+    private final long windowSeconds;
+    private final double chargesPerSecond;
+
+    private final AtomicLong nextFreeNanos = new AtomicLong(System.nanoTime());
+
+    public RenewalPacing(
+            @Value("${app.renewal.pacing.enabled:false}") boolean enabled,
+            @Value("${app.renewal.pacing.windowMinutes:1200}") int windowMinutes,
+            @Value("${app.renewal.pacing.chargesPerSecond:0}") double chargesPerSecond
+    ) {
+        this.enabled = enabled;
+        this.windowSeconds = Math.min(Math.max(1, windowMinutes), 24 * 60) * 60L;
+        this.chargesPerSecond = Math.max(0, chargesPerSecond);
+    }
+
+    /** Offset of the subscription inside its expiration day; zero when pacing is off. */
+    public Duration offset(UUID subscriptionId) {
+        if (!enabled) {
+            return Duration.ZERO;
+        }
+        return Duration.ofSeconds((subscriptionId.getLeastSignificantBits() & 0xFFFFFFFFL) % windowSeconds);
+    }
+
+    /** :paceWindow of the claim queries; 1 turns the predicate into "always released". */
+    long window() {
+        return enabled ? windowSeconds : 1;
+    }
+
+    /** :paceElapsed of the claim queries: seconds since the start of the claim day. */
+    static long elapsed(Instant dayStart, Instant now) {
+        return Math.max(0, Duration.between(dayStart, now).toSeconds());
+    }
+
+    /**
+     * Blocks until this instance may release permits more renewals, keeping an even spacing of
+     * 1/chargesPerSecond between them (no bursts). Returns false if interrupted.
+     */
+    boolean acquire(int permits) {
+        if (chargesPerSecond == 0 || permits <= 0) {
+            return true;
+        }
+        long cost = (long) (permits * TimeUnit.SECONDS.toNanos(1) / chargesPerSecond);
+
+        long start;
+        while (true) {
+            long next = nextFreeNanos.get();
+            long now = System.nanoTime();
+            start = next - now > 0 ? next : now;
+            if (nextFreeNanos.compareAndSet(next, start + cost)) {
+                break;
+            }
+        }
+
+        // parkNanos may return early; park again until the reserved slot starts.
+        while (start - System.nanoTime() > 0 && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(start - System.nanoTime());
+        }
+        return !Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * Gives back permits acquired but not used (the claim found fewer rows), so empty or
+     * partial claims do not consume the rate budget. Never moves the next slot before now.
+     */
+    void release(int permits) {
+        if (chargesPerSecond == 0 || permits <= 0) {
+            return;
+        }
+        long cost = (long) (permits * TimeUnit.SECONDS.toNanos(1) / chargesPerSecond);
+
+        while (true) {
+            long next = nextFreeNanos.get();
+            long released = Math.max(next - cost, System.nanoTime());
+            if (released - next >= 0 || nextFreeNanos.compareAndSet(next, released)) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package br.com.ricarte.assinaflow.subscription;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Maintains renewal_queue, the precomputed due set: one row per subscription that can still
+ * renew, keyed by (due_at, subscription_id).
+ *
+ * due_at is the first instant the renewal claim could pick the subscription up: the start of
+ * its expiration day (UTC), pushed back by the retry backoff (next_renewal_attempt_at) and by
+ * an in-flight async charge (renewal_in_flight_until). Subscriptions that can no longer renew
+ * (cancelled, suspended, auto_renew off) have no row.
+ *
+ * The {@link RenewalPacing} offset is deliberately not part of due_at: the claim applies it in
+ * SQL on the joined subscription, so changing app.renewal.pacing.* needs no rewrite of the
+ * queue and the 007 backfill stays valid.
+ *
+ * Every state transition calls {@link #schedule(SubscriptionEntity)} in the same transaction
+ * that changes the subscription. The statements run on the transaction's connection through
+ * JdbcTemplate; fk_renewal_queue_subscription is deferred, so the subscription row itself may
+ * still be pending in the persistence context.
+ */
+@Component
+public class RenewalQueue {
+
+    private static final String UPSERT = """
+            INSERT INTO renewal_queue (due_at, subscription_id)
+            VALUES (?, ?)
+            ON CONFLICT (subscription_id) DO UPDATE SET due_at = EXCLUDED.due_at
+            WHERE renewal_queue.due_at <> EXCLUDED.due_at
+            """;
+
+    private static final String DELETE = "DELETE FROM renewal_queue WHERE subscription_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RenewalQueue(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Inserts, moves or removes the queue entry of s according to its current state. */
+    public void schedule(SubscriptionEntity s) {
+        Instant dueAt = dueAt(s);
+        if (dueAt == null) {
+            jdbcTemplate.update(DELETE, s.getId());
+        } else {
+            jdbcTemplate.update(UPSERT, utc(dueAt), s.getId());
+        }
+    }
+
+    /** Same as {@link #schedule(SubscriptionEntity)} for many subscriptions, with JDBC batching. */
+    public void scheduleAll(Collection<SubscriptionEntity> subscriptions) {
+        List<Object[]> upserts = new ArrayList<>(subscriptions.size());
+        List<Object[]> deletes = new ArrayList<>();
+        for (SubscriptionEntity s : subscriptions) {
+            Instant dueAt = dueAt(s);
+            if (dueAt == null) {
+                deletes.add(new Object[]{s.getId()});
+            } else {
+                upserts.add(new Object[]{utc(dueAt), s.getId()});
+            }
+        }
+        if (!upserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT, upserts);
+        }
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE, deletes);
+        }
+    }
+
+    /** due_at of a subscription that was just created or renewed: nothing pushes it back yet. */
+    public Instant firstDueAt(LocalDate expirationDate) {
+        return expirationDate.atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+
+    /**
+     * When s becomes claimable, or null when it can no longer renew. Mirrors the fixed part of
+     * the due predicate in {@link SubscriptionRepository#lockBatchDueForRenewal}.
+     */
+    static Instant dueAt(SubscriptionEntity s) {
+        if (s.getStatus() != SubscriptionStatus.ATIVA
+                || !s.isAutoRenew()
+                || s.getRenewalFailures() >= RenewalAttemptApplier.MAX_ATTEMPTS) {
+            return null;
+        }
+        Instant due = s.getExpirationDate().atStartOfDay(ZoneOffset.UTC).toInstant();
+        due = later(due, s.getNextRenewalAttemptAt());
+        return later(due, s.getRenewalInFlightUntil());
+    }
+
+    private static Instant later(Instant a, Instant b) {
+        return b != null && b.isAfter(a) ? b : a;
+    }
+
+    private static OffsetDateTime utc(Instant instant) {
+        return instant.atOffset(ZoneOffset.UTC);
+    }
+}
@@ -2,7 +2,10 @@ package br.com.ricarte.assinaflow.subscription;
 
 import br.com.ricarte.assinaflow.common.time.TimeProvider;
 import br.com.ricarte.assinaflow.metrics.BillingMetrics;
+import br.com.ricarte.assinaflow.outbox.OutboxCounters;
 import br.com.ricarte.assinaflow.outbox.OutboxEventEntity;
+import br.com.ricarte.assinaflow.outbox.OutboxEventType;
+import br.com.ricarte.assinaflow.outbox.OutboxNotifier;
 import br.com.ricarte.assinaflow.outbox.OutboxRepository;
 import br.com.ricarte.assinaflow.outbox.OutboxStatus;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -18,48 +21,92 @@ import org.springframework.transaction.support.TransactionTemplate;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
+import java.util.function.Predicate;
 
 @Service
 public class RenewalService {
 
     private static final Logger log = LoggerFactory.getLogger(RenewalService.class);
 
+    /** Number of hash(id) claim slots; must match the "& 63" of idx_subscriptions_due_renewal_slot. */
+    static final int CLAIM_SLOTS = 64;
+
+    private static final Duration MIN_THROTTLE_DEFERRAL = Duration.ofSeconds(1);
+
+    /** In-flight lease on rows claimed by a direct-mode chunk; covers charging the whole chunk. */
+    static final Duration CHUNK_CLAIM_LEASE = Duration.ofMinutes(10);
+
     private final SubscriptionRepository subscriptionRepository;
     private final SubscriptionRenewalAttemptRepository attemptRepository;
     private final PaymentService paymentService;
+    private final PaymentThrottle paymentThrottle;
     private final TimeProvider timeProvider;
     private final SubscriptionCache subscriptionCache;
     private final BillingMetrics billingMetrics;
+    private final RenewalAttemptApplier renewalAttemptApplier;
+    private final RenewalQueue renewalQueue;
+    private final RenewalPacing renewalPacing;
 
     private final OutboxRepository outboxRepository;
+    private final OutboxNotifier outboxNotifier;
+    private final OutboxCounters outboxCounters;
     private final ObjectMapper objectMapper;
 
     private final boolean asyncEnabled;
 
+    private final boolean batchEnabled;
+    private final int batchSize;
+    private final int commitInterval;
+    private final boolean queueEnabled;
+
     private final TransactionTemplate requiresNewTx;
 
     public RenewalService(
             SubscriptionRepository subscriptionRepository,
             SubscriptionRenewalAttemptRepository attemptRepository,
             PaymentService paymentService,
+            PaymentThrottle paymentThrottle,
             TimeProvider timeProvider,
             SubscriptionCache subscriptionCache,
             BillingMetrics billingMetrics,
+            RenewalAttemptApplier renewalAttemptApplier,
+            RenewalQueue renewalQueue,
+            RenewalPacing renewalPacing,
             OutboxRepository outboxRepository,
+            OutboxNotifier outboxNotifier,
+            OutboxCounters outboxCounters,
             ObjectMapper objectMapper,
             PlatformTransactionManager transactionManager,
-            @Value("${app.payments.async.enabled:false}") boolean asyncEnabled
+            @Value("${app.payments.async.enabled:false}") boolean asyncEnabled,
+            @Value("${app.renewal.batch.enabled:false}") boolean batchEnabled,
+            @Value("${app.renewal.batch.size:100}") int batchSize,
+            @Value("${app.renewal.batch.commitInterval:500}") int commitInterval,
+            @Value("${app.renewal.queue.enabled:false}") boolean queueEnabled
     ) {
         this.subscriptionRepository = subscriptionRepository;
         this.attemptRepository = attemptRepository;
         this.paymentService = paymentService;
+        this.paymentThrottle = paymentThrottle;
         this.timeProvider = timeProvider;
         this.subscriptionCache = subscriptionCache;
         this.billingMetrics = billingMetrics;
+        this.renewalAttemptApplier = renewalAttemptApplier;
+        this.renewalQueue = renewalQueue;
+        this.renewalPacing = renewalPacing;
         this.outboxRepository = outboxRepository;
+        this.outboxNotifier = outboxNotifier;
+        this.outboxCounters = outboxCounters;
         this.objectMapper = objectMapper;
         this.asyncEnabled = asyncEnabled;
+        this.batchEnabled = batchEnabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.commitInterval = Math.max(1, commitInterval);
+        this.queueEnabled = queueEnabled;
 
         this.requiresNewTx = new TransactionTemplate(transactionManager);
         this.requiresNewTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
@@ -69,12 +116,40 @@ public class RenewalService {
      * Processes up to max items.
      * - Direct mode: charges synchronously and updates subscription.
      * - Async mode: enqueues an outbox event and marks in-flight.
+     *
+     * With app.renewal.batch.enabled the work is claimed in batches instead of one row
+     * per transaction (see {@link #processDueRenewalsInChunks(int, int, int)}).
+     *
+     * Returns the number of rows moved out of the due set. A row that is claimed but left due
+     * (its enqueue failed) ends the call, since the next claim would only return it again.
      */
     public int processDueRenewals(int max) {
+        return processDueRenewals(max, 0, 1);
+    }
+
+    /**
+     * Same as {@link #processDueRenewals(int)}, claiming only from the hash(id) slots owned by
+     * slice (slots where {@code slot % slices == slice}, out of {@link #CLAIM_SLOTS}). Workers
+     * with different slices lock rows from disjoint ranges of idx_subscriptions_due_renewal_slot.
+     * Once its own slots are drained a slice falls back to the whole due set, so rows of a slow
+     * or stopped worker still get processed. slices of 1 (or less) disables slicing.
+     */
+    public int processDueRenewals(int max, int slice, int slices) {
+        int sliceCount = Math.min(Math.max(1, slices), CLAIM_SLOTS);
+        int owned = Math.floorMod(slice, sliceCount);
+
+        if (batchEnabled) {
+            return processDueRenewalsInChunks(max, owned, sliceCount);
+        }
+
         int processed = 0;
         for (int i = 0; i < max; i++) {
-            Boolean didProcess = requiresNewTx.execute(status -> processOneRenewal());
-            if (Boolean.FALSE.equals(didProcess)) {
+            if (awaitChargeTokens(1) == 0 || !renewalPacing.acquire(1)) {
+                break;
+            }
+            RowOutcome outcome = requiresNewTx.execute(status -> processOneRenewal(owned, sliceCount));
+            if (outcome != RowOutcome.MOVED) {
+                renewalPacing.release(1);
                 break;
             }
             processed++;
@@ -82,6 +157,201 @@ public class RenewalService {
         return processed;
     }
 
+    /**
+     * Batch mode: chunks of up to commitInterval rows, claimed batchSize rows at a time with
+     * FOR UPDATE SKIP LOCKED.
+     * - Enqueue mode: each chunk is one REQUIRES_NEW transaction, flushed on commit (see
+     *   {@link #processEnqueueChunk(int, int, int)}).
+     * - Direct mode: the claim transaction only leases the rows; each row is charged in a
+     *   transaction of its own (see {@link #processDirectChunk(int, int, int)}).
+     *
+     * Returns the number of rows moved out of the due set.
+     */
+    private int processDueRenewalsInChunks(int max, int slice, int slices) {
+        int processed = 0;
+        while (processed < max) {
+            // Throttled and paced before the chunk transaction opens, so waiting never holds row
+            // locks; pacing permits the claim did not use are given back afterwards.
+            int limit = awaitChargeTokens(Math.min(commitInterval, max - processed));
+            if (limit == 0 || !renewalPacing.acquire(limit)) {
+                break;
+            }
+            ChunkResult chunk = asyncEnabled
+                    ? processEnqueueChunk(limit, slice, slices)
+                    : processDirectChunk(limit, slice, slices);
+            if (chunk == null) {
+                renewalPacing.release(limit);
+                break;
+            }
+            renewalPacing.release(limit - chunk.claimed());
+            processed += chunk.succeeded();
+            // Stop when the due set is drained or when nothing in the chunk went through,
+            // otherwise a poison row at the head of the queue would be retried in a loop.
+            if (chunk.drained() || chunk.succeeded() == 0) {
+                break;
+            }
+        }
+        return processed;
+    }
+
+    /**
+     * Direct mode: waits for the payment throttle outside any transaction and returns how many
+     * rows to claim (0 = give up this run). Enqueue mode charges nothing and is not throttled.
+     */
+    private int awaitChargeTokens(int wanted) {
+        return asyncEnabled ? wanted : paymentThrottle.awaitTokens(wanted);
+    }
+
+    /**
+     * Enqueue mode writes only to the database, so a chunk can be redone safely. A failing row
+     * cannot be rolled back alone (a failed save or flush marks the whole transaction
+     * rollback-only), so a failed chunk is rolled back as a whole and its claimed rows are redone
+     * one transaction each; only the failing row is lost.
+     */
+    private ChunkResult processEnqueueChunk(int limit, int slice, int slices) {
+        List<UUID> claimedIds = new ArrayList<>(limit);
+        try {
+            return requiresNewTx.execute(status -> processRenewalChunk(limit, slice, slices, claimedIds));
+        } catch (RuntimeException ex) {
+            log.warn("renewal chunk rolled back, redoing rows one by one rows={} error={}", claimedIds.size(), ex.toString());
+            return processRowByRow(claimedIds);
+        }
+    }
+
+    /** Claimed ids are collected as they are locked, so a failed chunk knows what to redo. */
+    private ChunkResult processRenewalChunk(int limit, int slice, int slices, List<UUID> claimedIds) {
+        Instant now = timeProvider.now();
+        int[] moved = {0};
+        ClaimedChunk chunk = claimChunk(limit, slice, slices, now, batch -> {
+            for (SubscriptionEntity s : batch) {
+                claimedIds.add(s.getId());
+                if (enqueuePaymentCharge(s, now)) {
+                    moved[0]++;
+                }
+            }
+            // A row left due is not skipped by this transaction's own SKIP LOCKED claims.
+            return moved[0] == claimedIds.size();
+        });
+        return new ChunkResult(chunk.claimed(), moved[0], chunk.drained());
+    }
+
+    /**
+     * Direct mode calls the gateway, so a rolled-back chunk cannot be redone without charging
+     * its earlier rows again, and a chunk transaction would hold every row and profile lock
+     * across the gateway calls. Instead the claim transaction leases the rows (in-flight until
+     * now + {@link #CHUNK_CLAIM_LEASE}, which the due predicate skips) and commits; each row is
+     * then locked and charged in its own REQUIRES_NEW transaction. A failing row only loses its
+     * own transaction and is picked up again when its lease runs out.
+     */
+    private ChunkResult processDirectChunk(int limit, int slice, int slices) {
+        // Truncated to the column precision, so the row transaction can recognise its own lease.
+        Instant lease = timeProvider.now().plus(CHUNK_CLAIM_LEASE).truncatedTo(ChronoUnit.MICROS);
+        List<UUID> claimedIds = new ArrayList<>(limit);
+        ClaimedChunk chunk;
+        try {
+            chunk = requiresNewTx.execute(status -> claimChunk(limit, slice, slices, timeProvider.now(), batch -> {
+                for (SubscriptionEntity s : batch) {
+                    claimedIds.add(s.getId());
+                    s.setRenewalInFlightUntil(lease);
+                }
+                renewalQueue.scheduleAll(batch);
+                return true;
+            }));
+        } catch (RuntimeException ex) {
+            // Nothing was charged and no lease was committed.
+            log.warn("renewal chunk claim failed rows={} error={}", claimedIds.size(), ex.toString());
+            return null;
+        }
+        if (chunk == null) {
+            return null;
+        }
+
+        int succeeded = 0;
+        for (UUID id : claimedIds) {
+            try {
+                if (Boolean.TRUE.equals(requiresNewTx.execute(status -> chargeLeased(id, lease)))) {
+                    succeeded++;
+                }
+            } catch (RuntimeException ex) {
+                log.warn("renewal row failed, retried after its lease subscriptionId={} error={}", id, ex.toString());
+            }
+        }
+        return new ChunkResult(chunk.claimed(), succeeded, chunk.drained());
+    }
+
+    /**
+     * Claims up to limit rows, batchSize at a time, handing each claimed batch to onBatch.
+     * When onBatch returns false (a row was left due) the chunk stops and is reported drained,
+     * which ends the round.
+     */
+    private ClaimedChunk claimChunk(int limit, int slice, int slices, Instant now, Predicate<List<SubscriptionEntity>> onBatch) {
+        LocalDate today = timeProvider.todayUtc();
+
+        int claimed = 0;
+        while (claimed < limit) {
+            int claimSize = Math.min(batchSize, limit - claimed);
+            List<SubscriptionEntity> batch = claimDue(today, now, claimSize, slice, slices);
+            claimed += batch.size();
+            if (!onBatch.test(batch)) {
+                return new ClaimedChunk(claimed, true);
+            }
+
+            if (batch.size() < claimSize) {
+                return new ClaimedChunk(claimed, true);
+            }
+        }
+        return new ClaimedChunk(claimed, false);
+    }
+
+    /**
+     * Charges a row leased by {@link #processDirectChunk(int, int, int)}. If the lease is no
+     * longer ours (it ran out and another worker claimed the row), the row is left alone.
+     */
+    private boolean chargeLeased(UUID id, Instant lease) {
+        SubscriptionEntity s = subscriptionRepository.findByIdForUpdate(id).orElse(null);
+        if (s == null || !lease.equals(s.getRenewalInFlightUntil())) {
+            return false;
+        }
+
+        s.setRenewalInFlightUntil(null);
+        if (s.getStatus() != SubscriptionStatus.ATIVA || !s.isAutoRenew()) {
+            subscriptionRepository.save(s);
+            renewalQueue.schedule(s);
+            return true;
+        }
+        return processLockedSubscriptionDirect(s, timeProvider.now());
+    }
+
+    /**
+     * Redoes the rows of a rolled-back chunk, one REQUIRES_NEW transaction each. Each row is
+     * locked again and re-checked against the due predicate, since another worker may have
+     * taken it in between.
+     */
+    private ChunkResult processRowByRow(List<UUID> ids) {
+        int succeeded = 0;
+        for (UUID id : ids) {
+            try {
+                if (requiresNewTx.execute(status -> processOneRenewal(id)) == RowOutcome.MOVED) {
+                    succeeded++;
+                }
+            } catch (RuntimeException ex) {
+                log.warn("renewal row failed subscriptionId={} error={}", id, ex.toString());
+            }
+        }
+        return new ChunkResult(ids.size(), succeeded, false);
+    }
+
+    private record ChunkResult(int claimed, int succeeded, boolean drained) {
+    }
+
+    private record ClaimedChunk(int claimed, boolean drained) {
+    }
+
+    /** Outcome of one claim: nothing due, row moved out of the due set, or row claimed but left due. */
+    private enum RowOutcome {
+        NONE, MOVED, LEFT_DUE
+    }
+
     /**
      * Finalizes scheduled cancellations after expiration.
      */
@@ -97,22 +367,73 @@ public class RenewalService {
         return processed;
     }
 
-    private boolean processOneRenewal() {
+    private RowOutcome processOneRenewal(UUID subscriptionId) {
+        Instant now = timeProvider.now();
+        LocalDate today = timeProvider.todayUtc();
+
+        List<SubscriptionEntity> due = subscriptionRepository.lockDueForRenewalById(
+                subscriptionId, today, now, renewalPacing.window(), paceElapsed(today, now));
+        if (due.isEmpty()) {
+            return RowOutcome.NONE;
+        }
+        return processLockedSubscription(due.get(0), now);
+    }
+
+    private RowOutcome processOneRenewal(int slice, int slices) {
         Instant now = timeProvider.now();
         LocalDate today = timeProvider.todayUtc();
 
-        List<SubscriptionEntity> batch = subscriptionRepository.lockBatchDueForRenewal(today, now, 1);
+        List<SubscriptionEntity> batch = claimDue(today, now, 1, slice, slices);
         if (batch.isEmpty()) {
-            return false;
+            return RowOutcome.NONE;
         }
+        return processLockedSubscription(batch.get(0), now);
+    }
 
-        SubscriptionEntity s = batch.get(0);
-        if (asyncEnabled) {
-            enqueuePaymentCharge(s, now);
-        } else {
-            processLockedSubscriptionDirect(s, now);
+    /**
+     * Locks up to limit due subscriptions, walking the slots owned by slice before falling
+     * back to the unsliced claim.
+     */
+    private List<SubscriptionEntity> claimDue(LocalDate today, Instant now, int limit, int slice, int slices) {
+        if (slices <= 1) {
+            return claimAll(today, now, limit);
         }
-        return true;
+
+        List<SubscriptionEntity> claimed = new ArrayList<>(limit);
+        for (int slot = slice; slot < CLAIM_SLOTS && claimed.size() < limit; slot += slices) {
+            claimed.addAll(claimSlot(slot, today, now, limit - claimed.size()));
+        }
+        // Only fall back when the own slots are empty: rows this transaction already locked are
+        // not skipped by SKIP LOCKED, so topping up a partial batch could return them twice.
+        return claimed.isEmpty() ? claimAll(today, now, limit) : claimed;
+    }
+
+    /** With app.renewal.queue.enabled the due set is read from renewal_queue instead of subscriptions. */
+    private List<SubscriptionEntity> claimAll(LocalDate today, Instant now, int limit) {
+        return queueEnabled
+                ? subscriptionRepository.lockBatchDueFromQueue(today, startOfDay(today), now, renewalPacing.window(), paceElapsed(today, now), limit)
+                : subscriptionRepository.lockBatchDueForRenewal(today, now, renewalPacing.window(), paceElapsed(today, now), limit);
+    }
+
+    private List<SubscriptionEntity> claimSlot(int slot, LocalDate today, Instant now, int limit) {
+        return queueEnabled
+                ? subscriptionRepository.lockBatchDueFromQueueInSlot(slot, today, startOfDay(today), now, renewalPacing.window(), paceElapsed(today, now), limit)
+                : subscriptionRepository.lockBatchDueForRenewalInSlot(slot, today, now, renewalPacing.window(), paceElapsed(today, now), limit);
+    }
+
+    private static Instant startOfDay(LocalDate day) {
+        return day.atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+
+    private static long paceElapsed(LocalDate today, Instant now) {
+        return RenewalPacing.elapsed(startOfDay(today), now);
+    }
+
+    private RowOutcome processLockedSubscription(SubscriptionEntity s, Instant now) {
+        boolean moved = asyncEnabled
+                ? enqueuePaymentCharge(s, now)
+                : processLockedSubscriptionDirect(s, now);
+        return moved ? RowOutcome.MOVED : RowOutcome.LEFT_DUE;
     }
 
     private boolean processOneFinalization() {
@@ -126,25 +447,35 @@ public class RenewalService {
         s.setStatus(SubscriptionStatus.CANCELADA);
         s.setAutoRenew(false);
         subscriptionRepository.save(s);
+        renewalQueue.schedule(s);
         subscriptionCache.evictActive(s.getUserId());
 
         log.info("finalized cancellation subscriptionId={} userId={}", s.getId(), s.getUserId());
         return true;
     }
 
-    private void enqueuePaymentCharge(SubscriptionEntity s, Instant now) {
+    /** Returns whether the row left the due set (in-flight lease set); false when the enqueue failed. */
+    private boolean enqueuePaymentCharge(SubscriptionEntity s, Instant now) {
         // Defensive: should already be filtered by query
         if (s.getStatus() != SubscriptionStatus.ATIVA || !s.isAutoRenew()) {
-            return;
+            return false;
         }
 
         int attemptNumber = s.getRenewalFailures() + 1;
         int amountCents = s.getPlan().getPriceCents();
         LocalDate cycleExpiration = s.getExpirationDate();
 
-        String idempotencyKey = s.getId() + "|" + cycleExpiration + "|" + attemptNumber;
+        String idempotencyKey = idempotencyKey(s.getId(), cycleExpiration, attemptNumber);
 
         try {
+            if (outboxRepository.reserveIdempotencyKey(idempotencyKey) == 0) {
+                // Idempotency key already exists: another instance enqueued the same attempt.
+                s.setRenewalInFlightUntil(now.plus(Duration.ofMinutes(10)));
+                subscriptionRepository.save(s);
+                renewalQueue.schedule(s);
+                return true;
+            }
+
             PaymentChargeRequested msg = new PaymentChargeRequested(
                     null,
                     s.getId(),
@@ -160,103 +491,83 @@ public class RenewalService {
             OutboxEventEntity e = new OutboxEventEntity();
             e.setAggregateType("SUBSCRIPTION");
             e.setAggregateId(s.getId());
-            e.setEventType("PAYMENT_CHARGE_REQUESTED");
+            e.setEventType(OutboxEventType.PAYMENT_CHARGE_REQUESTED.name());
             e.setIdempotencyKey(idempotencyKey);
             e.setPayload(payload);
             e.setStatus(OutboxStatus.PENDING);
             e.setPublishAttempts(0);
 
             outboxRepository.save(e);
+            outboxNotifier.notifyPending();
             billingMetrics.outboxEnqueued(e.getEventType());
+            outboxCounters.enqueued(1);
 
             // Mark in-flight to prevent repeated enqueueing while message is being processed.
             s.setRenewalInFlightUntil(now.plus(Duration.ofMinutes(10)));
             subscriptionRepository.save(s);
+            renewalQueue.schedule(s);
 
             log.info("enqueued payment charge subscriptionId={} userId={} attempt={}", s.getId(), s.getUserId(), attemptNumber);
+            return true;
         } catch (DataIntegrityViolationException dup) {
             // Idempotency key already exists: another instance enqueued the same attempt.
             s.setRenewalInFlightUntil(now.plus(Duration.ofMinutes(10)));
             subscriptionRepository.save(s);
+            renewalQueue.schedule(s);
+            return true;
         } catch (Exception ex) {
             log.warn("failed to enqueue outbox subscriptionId={} error={}", s.getId(), ex.toString());
+            return false;
         }
     }
 
-    private void processLockedSubscriptionDirect(SubscriptionEntity s, Instant now) {
+    /** Outbox idempotency key of one charge attempt: subscriptionId|cycleExpiration|attemptNumber. */
+    static String idempotencyKey(UUID subscriptionId, LocalDate cycleExpiration, int attemptNumber) {
+        return subscriptionId + "|" + cycleExpiration + "|" + attemptNumber;
+    }
+
+    /** Returns whether the row left the due set (charged, or deferred by the throttle). */
+    private boolean processLockedSubscriptionDirect(SubscriptionEntity s, Instant now) {
         if (s.getStatus() != SubscriptionStatus.ATIVA || !s.isAutoRenew()) {
-            return;
+            return false;
         }
 
         int attemptNumber = s.getRenewalFailures() + 1;
         int amountCents = s.getPlan().getPriceCents();
         LocalDate cycleExpiration = s.getExpirationDate();
 
-        PaymentResult payment = paymentService.charge(s.getUserId(), amountCents);
-
-        SubscriptionRenewalAttemptEntity attempt = new SubscriptionRenewalAttemptEntity();
-        attempt.setSubscriptionId(s.getId());
-        attempt.setCycleExpirationDate(cycleExpiration);
-        attempt.setAttemptNumber(attemptNumber);
-        attempt.setAttemptedAt(now);
-        attempt.setAmountCents(amountCents);
-
-        if (payment.isApproved()) {
-            attempt.setResult(RenewalAttemptResult.SUCCESS);
-            attemptRepository.save(attempt);
-            billingMetrics.renewalAttempt(true, "sync");
-
-            s.setStartDate(cycleExpiration);
-            s.setExpirationDate(cycleExpiration.plusMonths(1));
-            s.setRenewalFailures(0);
-            s.setNextRenewalAttemptAt(null);
-            s.setStatus(SubscriptionStatus.ATIVA);
-            s.setRenewalInFlightUntil(null);
-
-            subscriptionRepository.save(s);
-            subscriptionCache.evictActive(s.getUserId());
-
-            log.info("renewal success subscriptionId={} userId={} newExpiration={}", s.getId(), s.getUserId(), s.getExpirationDate());
-            return;
+        PaymentResult payment;
+        try {
+            payment = paymentService.tryCharge(s.getUserId(), s.getPlan(), amountCents);
+        } catch (PaymentThrottledException throttled) {
+            deferThrottled(s, now, throttled);
+            return true;
         }
 
-        attempt.setResult(RenewalAttemptResult.FAILURE);
-        attempt.setErrorCode(payment.errorCode());
-        attempt.setErrorMessage(payment.errorMessage());
+        SubscriptionRenewalAttemptEntity attempt =
+                renewalAttemptApplier.apply(s, cycleExpiration, attemptNumber, amountCents, payment, now, "sync");
         attemptRepository.save(attempt);
-        billingMetrics.renewalAttempt(false, "sync");
-
-        s.setRenewalFailures(attemptNumber);
-
-        if (attemptNumber >= 3) {
-            s.setStatus(SubscriptionStatus.SUSPENSA);
-            s.setAutoRenew(false);
-            s.setNextRenewalAttemptAt(null);
-            s.setSuspendedAt(now);
-            s.setRenewalInFlightUntil(null);
-            subscriptionRepository.save(s);
-            subscriptionCache.evictActive(s.getUserId());
-            billingMetrics.subscriptionSuspended("sync");
-
-            log.warn("renewal failed 3x -> suspended subscriptionId={} userId={}", s.getId(), s.getUserId());
-            return;
-        }
-
-        Duration backoff = backoffForAttempt(attemptNumber);
-        s.setNextRenewalAttemptAt(now.plus(backoff));
-        s.setRenewalInFlightUntil(null);
         subscriptionRepository.save(s);
-        subscriptionCache.evictActive(s.getUserId());
-
-        log.info("renewal failed subscriptionId={} userId={} attempt={} nextAttemptAt={}",
-                s.getId(), s.getUserId(), attemptNumber, s.getNextRenewalAttemptAt());
+        renewalQueue.schedule(s);
+        return true;
     }
 
-    private static Duration backoffForAttempt(int attemptNumber) {
-        return switch (attemptNumber) {
-            case 1 -> Duration.ofMinutes(15);
-            case 2 -> Duration.ofMinutes(60);
-            default -> Duration.ZERO;
-        };
+    /**
+     * Nothing was charged: push the row back by the throttle's estimate without recording an
+     * attempt, so throttling never counts toward suspension. The charge does not wait while the
+     * row is locked; the worker already waited in {@link #awaitChargeTokens(int)}, which is what
+     * slows the run down.
+     */
+    private void deferThrottled(SubscriptionEntity s, Instant now, PaymentThrottledException throttled) {
+        Duration delay = throttled.getRetryAfter().compareTo(MIN_THROTTLE_DEFERRAL) < 0
+                ? MIN_THROTTLE_DEFERRAL
+                : throttled.getRetryAfter();
+        s.setNextRenewalAttemptAt(now.plus(delay));
+        subscriptionRepository.save(s);
+        renewalQueue.schedule(s);
+        billingMetrics.renewalDeferred("throttled");
+
+        log.info("renewal deferred, payment throttled subscriptionId={} bucket={} nextAttemptAt={}",
+                s.getId(), throttled.getBucket(), s.getNextRenewalAttemptAt());
     }
 }
@@ -0,0 +1,137 @@
+package br.com.ricarte.assinaflow.subscription;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pool of renewal workers. Each worker repeatedly runs rounds of up to rowsPerRound rows
+ * through {@link RenewalService#processDueRenewals(int)}; FOR UPDATE SKIP LOCKED keeps the
+ * claims disjoint, so workers never process the same subscription. Unless
+ * app.renewal.batch.enabled is on, rowsPerRound is only a loop count: each row still gets
+ * its own transaction.
+ *
+ * A run lasts until the due set is drained. When a round moves no row out of the due set
+ * (nothing to claim, or only rows left due, e.g. a failed enqueue) the worker backs off
+ * exponentially (rows may still be locked by other workers or instances) and gives up after
+ * maxIdleRounds such rounds, so a row that stays due never spins a worker.
+ *
+ * With app.renewal.workers.sliced each worker claims from its own hash(id) slice of the due
+ * set ({@link RenewalService#processDueRenewals(int, int, int)}), so workers walk different
+ * index ranges instead of all skipping over the rows locked at the head of the due index.
+ */
+@Component
+public class RenewalWorkerPool {
+
+    private static final Logger log = LoggerFactory.getLogger(RenewalWorkerPool.class);
+
+    private final RenewalService renewalService;
+    private final int workerCount;
+    private final int rowsPerRound;
+    private final long idleBackoffMs;
+    private final long maxIdleBackoffMs;
+    private final int maxIdleRounds;
+    private final boolean sliced;
+
+    private final ExecutorService executor;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public RenewalWorkerPool(
+            RenewalService renewalService,
+            @Value("${app.renewal.workers.count:1}") int workerCount,
+            @Value("${app.renewal.workers.rowsPerRound:100}") int rowsPerRound,
+            @Value("${app.renewal.workers.idleBackoffMs:200}") long idleBackoffMs,
+            @Value("${app.renewal.workers.maxIdleBackoffMs:5000}") long maxIdleBackoffMs,
+            @Value("${app.renewal.workers.maxIdleRounds:3}") int maxIdleRounds,
+            @Value("${app.renewal.workers.sliced:false}") boolean sliced
+    ) {
+        this.renewalService = renewalService;
+        this.workerCount = Math.max(1, workerCount);
+        this.rowsPerRound = Math.max(1, rowsPerRound);
+        this.idleBackoffMs = Math.max(0, idleBackoffMs);
+        this.maxIdleBackoffMs = Math.max(this.idleBackoffMs, maxIdleBackoffMs);
+        this.maxIdleRounds = Math.max(0, maxIdleRounds);
+        this.sliced = sliced;
+
+        this.executor = Executors.newFixedThreadPool(this.workerCount, new CustomizableThreadFactory("renewal-worker-"));
+    }
+
+    /**
+     * Starts a drain run on all workers and returns immediately.
+     * If the previous run is still in progress no new run is started and the
+     * returned future completes with 0.
+     *
+     * @return future with the number of subscriptions processed by this run
+     */
+    public CompletableFuture<Integer> drain() {
+        if (!running.compareAndSet(false, true)) {
+            return CompletableFuture.completedFuture(0);
+        }
+
+        List<CompletableFuture<Integer>> workers = new ArrayList<>(workerCount);
+        int slices = sliced ? Math.min(workerCount, RenewalService.CLAIM_SLOTS) : 1;
+        for (int i = 0; i < workerCount; i++) {
+            int slice = i % slices;
+            workers.add(CompletableFuture.supplyAsync(() -> runWorker(slice, slices), executor));
+        }
+
+        return CompletableFuture.allOf(workers.toArray(CompletableFuture[]::new))
+                .handle((ignored, ex) -> {
+                    running.set(false);
+                    if (ex != null) {
+                        log.error("renewal workers failed error={}", ex.toString());
+                    }
+                    return workers.stream()
+                            .mapToInt(w -> w.isCompletedExceptionally() ? 0 : w.join())
+                            .sum();
+                });
+    }
+
+    private int runWorker(int slice, int slices) {
+        int processed = 0;
+        int idleRounds = 0;
+        long backoff = idleBackoffMs;
+
+        while (!Thread.currentThread().isInterrupted()) {
+            int moved = slices > 1
+                    ? renewalService.processDueRenewals(rowsPerRound, slice, slices)
+                    : renewalService.processDueRenewals(rowsPerRound);
+            if (moved > 0) {
+                processed += moved;
+                idleRounds = 0;
+                backoff = idleBackoffMs;
+                continue;
+            }
+
+            if (idleRounds >= maxIdleRounds) {
+                break;
+            }
+            idleRounds++;
+
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            backoff = Math.min(backoff * 2, maxIdleBackoffMs);
+        }
+
+        return processed;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -1,26 +1,343 @@
 package br.com.ricarte.assinaflow.subscription;
 
+import br.com.ricarte.assinaflow.config.CacheMultiGet;
+import br.com.ricarte.assinaflow.subscription.dto.SubscriptionResponse;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
+/**
+ * Keeps the activeSubscription cache in step with writes.
+ *
+ * Inside a transaction, cache changes are deferred until after commit, so readers never see
+ * a value that gets rolled back and the cache is not emptied before the new state is
+ * visible. Changes are keyed by user and the last one in the transaction wins.
+ *
+ * Reads go through getActive: concurrent misses for the same user share one load and one
+ * cache fill (single-flight), and with refresh-ahead on, a hit close to the TTL triggers one
+ * background reload while the cached value is still served.
+ *
+ * Users without an active subscription are cached too, as an absent entry that is only
+ * trusted for negativeTtlMs. Creating a subscription overwrites it through refreshActive.
+ */
 @Component
 public class SubscriptionCache {
 
     public static final String ACTIVE_CACHE = "activeSubscription";
 
+    /** Statuses served by getActive; anything else is terminal for the cache. */
+    private static final EnumSet<SubscriptionStatus> CACHED_STATUSES =
+            EnumSet.of(SubscriptionStatus.ATIVA, SubscriptionStatus.CANCELAMENTO_AGENDADO);
+
+    /** Power of two; generations are striped by user so the array stays fixed-size. */
+    private static final int GENERATION_STRIPES = 1024;
+
+    private static final Logger log = LoggerFactory.getLogger(SubscriptionCache.class);
+
     private final CacheManager cacheManager;
+    private final CacheMultiGet cacheMultiGet;
+    private final Clock clock;
+
+    /** Entry age at which a hit triggers a background reload; 0 disables refresh-ahead. */
+    private final long refreshAfterMs;
+
+    /** How long an absent entry is served; 0 disables negative caching. */
+    private final long negativeTtlMs;
+    private final ExecutorService refreshExecutor;
+
+    private final ConcurrentMap<UUID, CompletableFuture<ActiveSubscriptionEntry>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Bumped on every committed write, before its cache change. A load only fills the cache if
+     * its stripe did not move while it was reading, so a read that raced a commit cannot
+     * overwrite the newer value (see {@link #putIfUnchanged}).
+     */
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    @Autowired
+    public SubscriptionCache(
+            CacheManager cacheManager,
+            CacheMultiGet cacheMultiGet,
+            Clock clock,
+            CacheProperties cacheProperties,
+            @Value("${app.cache.active.refreshAhead.enabled:false}") boolean refreshAheadEnabled,
+            @Value("${app.cache.active.refreshAhead.windowMs:10000}") long windowMs,
+            @Value("${app.cache.active.refreshAhead.threads:2}") int threads,
+            @Value("${app.cache.active.negativeTtlMs:5000}") long negativeTtlMs
+    ) {
+        this(cacheManager, cacheMultiGet, clock, refreshAheadEnabled ? cacheProperties.getRedis().getTimeToLive() : null, windowMs, threads, negativeTtlMs);
+    }
 
-    public SubscriptionCache(CacheManager cacheManager) {
+    SubscriptionCache(CacheManager cacheManager, CacheMultiGet cacheMultiGet, Clock clock,
+                      Duration ttl, long windowMs, int threads, long negativeTtlMs) {
         this.cacheManager = cacheManager;
+        this.cacheMultiGet = cacheMultiGet;
+        this.clock = clock;
+        this.negativeTtlMs = Math.max(0, negativeTtlMs);
+
+        // Only meaningful when entries expire (Redis TTL); the simple cache never does.
+        if (ttl != null && ttl.toMillis() > windowMs && windowMs > 0) {
+            this.refreshAfterMs = ttl.toMillis() - windowMs;
+            this.refreshExecutor = Executors.newFixedThreadPool(Math.max(1, threads), new CustomizableThreadFactory("cache-refresh-"));
+        } else {
+            this.refreshAfterMs = 0;
+            this.refreshExecutor = null;
+        }
+    }
+
+    /**
+     * Cached read of the active subscription; empty when the user has none. On a miss the loader
+     * runs once per user no matter how many callers are waiting; if it throws, the exception is
+     * rethrown to all of them and nothing is cached.
+     */
+    public Optional<SubscriptionResponse> getActive(UUID userId, Supplier<Optional<SubscriptionResponse>> loader) {
+        Cache cache = cacheManager.getCache(ACTIVE_CACHE);
+        if (cache == null) {
+            return loader.get();
+        }
+
+        ActiveSubscriptionEntry entry = cache.get(userId, ActiveSubscriptionEntry.class);
+        long now = clock.millis();
+        if (entry != null && !entry.hasResponse()) {
+            // Absent entries live in the same cache (same Redis TTL), so their shorter TTL is
+            // enforced here on read.
+            if (now - entry.getCachedAtEpochMs() < negativeTtlMs) {
+                return Optional.empty();
+            }
+        } else if (entry != null) {
+            if (refreshExecutor != null && now - entry.getCachedAtEpochMs() >= refreshAfterMs) {
+                load(cache, userId, loader, refreshExecutor).whenComplete((loaded, t) -> {
+                    if (t != null) {
+                        log.debug("active subscription refresh failed userId={} error={}", userId, t.toString());
+                    }
+                });
+            }
+            return Optional.of(entry.getResponse());
+        }
+
+        // The first caller loads on its own thread; the others wait on its future.
+        return join(load(cache, userId, loader, Runnable::run));
+    }
+
+    /**
+     * Bulk variant of getActive: hits come from one multi-get, and all misses from a single
+     * loader call, whose results are cached like getActive's. Every requested user is in the
+     * result, mapped to null when it has no active subscription.
+     */
+    public Map<UUID, SubscriptionResponse> getActiveAll(
+            Collection<UUID> userIds, Function<Collection<UUID>, Map<UUID, SubscriptionResponse>> loader) {
+        Cache cache = cacheManager.getCache(ACTIVE_CACHE);
+        Map<Object, Object> hits = cache != null ? cacheMultiGet.getAll(cache, userIds) : Map.of();
+
+        Map<UUID, SubscriptionResponse> found = new HashMap<>();
+        List<UUID> missing = new ArrayList<>();
+        long now = clock.millis();
+        for (UUID userId : userIds) {
+            if (hits.get(userId) instanceof ActiveSubscriptionEntry entry
+                    && (entry.hasResponse() || now - entry.getCachedAtEpochMs() < negativeTtlMs)) {
+                found.put(userId, entry.getResponse());
+            } else {
+                missing.add(userId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            long[] generationsBefore = new long[missing.size()];
+            for (int i = 0; i < generationsBefore.length; i++) {
+                generationsBefore[i] = generations.get(stripe(missing.get(i)));
+            }
+
+            Map<UUID, SubscriptionResponse> loaded = loader.apply(missing);
+            long loadedAt = clock.millis();
+            for (int i = 0; i < generationsBefore.length; i++) {
+                UUID userId = missing.get(i);
+                SubscriptionResponse response = loaded.get(userId);
+                found.put(userId, response);
+                if (cache != null && (response != null || negativeTtlMs > 0)) {
+                    putIfUnchanged(cache, userId, new ActiveSubscriptionEntry(response, loadedAt), generationsBefore[i]);
+                }
+            }
+        }
+
+        Map<UUID, SubscriptionResponse> result = new LinkedHashMap<>();
+        for (UUID userId : userIds) {
+            result.put(userId, found.get(userId));
+        }
+        return result;
+    }
+
+    private CompletableFuture<ActiveSubscriptionEntry> load(
+            Cache cache, UUID userId, Supplier<Optional<SubscriptionResponse>> loader, Executor executor) {
+        CompletableFuture<ActiveSubscriptionEntry> future = new CompletableFuture<>();
+        CompletableFuture<ActiveSubscriptionEntry> existing = inFlight.putIfAbsent(userId, future);
+        if (existing != null) {
+            return existing;
+        }
+
+        Runnable task = () -> {
+            try {
+                long generation = generations.get(stripe(userId));
+                ActiveSubscriptionEntry loaded = new ActiveSubscriptionEntry(loader.get().orElse(null), clock.millis());
+                if (loaded.hasResponse() || negativeTtlMs > 0) {
+                    putIfUnchanged(cache, userId, loaded, generation);
+                }
+                future.complete(loaded);
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            } finally {
+                inFlight.remove(userId, future);
+            }
+        };
+
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Shutting down: skip the refresh, the cached value is still valid.
+            inFlight.remove(userId, future);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Caches a loaded entry unless a write committed since generation was read. The check and
+     * the put are two steps, so a commit can still land in between and be overwritten by the
+     * stale entry; the generation is read again after the put and the entry evicted if it
+     * moved, leaving a miss instead of a stale value.
+     */
+    private void putIfUnchanged(Cache cache, UUID userId, ActiveSubscriptionEntry entry, long generation) {
+        int stripe = stripe(userId);
+        if (generations.get(stripe) != generation) {
+            return;
+        }
+        cache.put(userId, entry);
+        if (generations.get(stripe) != generation) {
+            cache.evict(userId);
+        }
+    }
+
+    private static Optional<SubscriptionResponse> join(CompletableFuture<ActiveSubscriptionEntry> future) {
+        try {
+            return Optional.ofNullable(future.join().getResponse());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            if (e.getCause() instanceof Error err) {
+                throw err;
+            }
+            throw e;
+        }
+    }
+
+    private static int stripe(UUID userId) {
+        return userId.hashCode() & (GENERATION_STRIPES - 1);
+    }
+
+    /**
+     * Write-through: puts the subscription's response into the cache after commit, or evicts
+     * when its status is no longer served by getActive (CANCELADA, SUSPENSA).
+     */
+    public void refreshActive(SubscriptionEntity s) {
+        if (!CACHED_STATUSES.contains(s.getStatus())) {
+            evictActive(s.getUserId());
+            return;
+        }
+        schedule(s.getUserId(), s);
     }
 
     public void evictActive(UUID userId) {
+        schedule(userId, null);
+    }
+
+    private void schedule(UUID userId, SubscriptionEntity s) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(userId, s);
+            return;
+        }
+        pendingWrites().writes.put(userId, s);
+    }
+
+    private void apply(UUID userId, SubscriptionEntity s) {
         Cache cache = cacheManager.getCache(ACTIVE_CACHE);
-        if (cache != null) {
+        if (cache == null) {
+            return;
+        }
+        generations.incrementAndGet(stripe(userId));
+        if (s == null) {
             cache.evict(userId);
+        } else {
+            // Built at commit time so the cached value reflects the final state of the row.
+            cache.put(userId, new ActiveSubscriptionEntry(SubscriptionService.toResponse(s), clock.millis()));
+        }
+    }
+
+    /**
+     * One synchronization per transaction. Looked up in the synchronization list (not bound as
+     * a resource) because the list is suspended with the transaction under REQUIRES_NEW.
+     */
+    private PendingWrites pendingWrites() {
+        for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+            if (sync instanceof PendingWrites pending && pending.owner() == this) {
+                return pending;
+            }
+        }
+        PendingWrites pending = new PendingWrites();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+    }
+
+    private final class PendingWrites implements TransactionSynchronization {
+
+        /** userId -> entity to put, or null to evict. */
+        private final Map<UUID, SubscriptionEntity> writes = new LinkedHashMap<>();
+
+        SubscriptionCache owner() {
+            return SubscriptionCache.this;
+        }
+
+        @Override
+        public void afterCommit() {
+            writes.forEach(SubscriptionCache.this::apply);
         }
     }
 }
@@ -1,10 +1,13 @@
 package br.com.ricarte.assinaflow.subscription;
 
 import br.com.ricarte.assinaflow.subscription.dto.CreateSubscriptionRequest;
+import br.com.ricarte.assinaflow.subscription.dto.SubscriptionHistoryPage;
 import br.com.ricarte.assinaflow.subscription.dto.SubscriptionResponse;
 import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.net.URI;
 import java.util.List;
@@ -15,9 +18,11 @@ import java.util.UUID;
 public class SubscriptionController {
 
     private final SubscriptionService subscriptionService;
+    private final SubscriptionHistoryStreamer historyStreamer;
 
-    public SubscriptionController(SubscriptionService subscriptionService) {
+    public SubscriptionController(SubscriptionService subscriptionService, SubscriptionHistoryStreamer historyStreamer) {
         this.subscriptionService = subscriptionService;
+        this.historyStreamer = historyStreamer;
     }
 
     @PostMapping
@@ -38,6 +43,25 @@ public class SubscriptionController {
         return subscriptionService.history(userId);
     }
 
+    /**
+     * Same JSON array as history, written row by row as it is read (?stream=true).
+     */
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> historyStream(@PathVariable UUID userId) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> historyStreamer.write(userId, out));
+    }
+
+    @GetMapping("/history")
+    public SubscriptionHistoryPage historyPage(
+            @PathVariable UUID userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit
+    ) {
+        return subscriptionService.historyPage(userId, cursor, limit);
+    }
+
     @PostMapping("/cancel")
     public SubscriptionResponse cancel(@PathVariable UUID userId) {
         return subscriptionService.cancel(userId);
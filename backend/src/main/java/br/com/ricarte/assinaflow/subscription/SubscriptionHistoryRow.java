@@ -0,0 +1,29 @@
+package br.com.ricarte.assinaflow.subscription;
+
+import br.com.ricarte.assinaflow.subscription.dto.SubscriptionResponse;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Projection for history pages: the response columns plus created_at, the cursor key.
+ */
+public record SubscriptionHistoryRow(
+        UUID id,
+        UUID userId,
+        Plan plan,
+        LocalDate startDate,
+        LocalDate expirationDate,
+        SubscriptionStatus status,
+        boolean autoRenew,
+        int renewalFailures,
+        Instant nextRenewalAttemptAt,
+        Instant createdAt
+) {
+
+    SubscriptionResponse toResponse() {
+        return new SubscriptionResponse(id, userId, plan, startDate, expirationDate, status,
+                autoRenew, renewalFailures, nextRenewalAttemptAt);
+    }
+}
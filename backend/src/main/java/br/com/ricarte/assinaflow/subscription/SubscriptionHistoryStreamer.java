@@ -0,0 +1,99 @@
+package br.com.ricarte.assinaflow.subscription;
+
+import br.com.ricarte.assinaflow.subscription.dto.SubscriptionResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Writes a user's whole history as a JSON array while reading it, newest first.
+ *
+ * Rows come from a server-side cursor (fetchSize inside a read-only transaction, which the
+ * Postgres driver needs to stop buffering the full result) and go straight to the response,
+ * so memory stays flat however long the history is. No entities are created.
+ */
+@Component
+public class SubscriptionHistoryStreamer {
+
+    private static final String SQL = """
+            SELECT id, user_id, plan, start_date, expiration_date, status,
+                   auto_renew, renewal_failures, next_renewal_attempt_at
+            FROM subscriptions
+            WHERE user_id = ?
+            ORDER BY created_at DESC, id DESC
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTx;
+    private final int fetchSize;
+
+    public SubscriptionHistoryStreamer(
+            JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.subscriptions.history.streamFetchSize:500}") int fetchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.fetchSize = Math.max(1, fetchSize);
+
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    public void write(UUID userId, OutputStream out) throws IOException {
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            gen.writeStartArray();
+
+            readOnlyTx.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(SQL);
+                ps.setObject(1, userId);
+                ps.setFetchSize(fetchSize);
+                return ps;
+            }, (RowCallbackHandler) rs -> {
+                try {
+                    gen.writeObject(toResponse(rs));
+                } catch (IOException e) {
+                    // Client went away: abort the query instead of reading the rest.
+                    throw new UncheckedIOException(e);
+                }
+            }));
+
+            gen.writeEndArray();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static SubscriptionResponse toResponse(ResultSet rs) throws SQLException {
+        SubscriptionResponse r = new SubscriptionResponse();
+        r.setId(rs.getObject("id", UUID.class));
+        r.setUsuarioId(rs.getObject("user_id", UUID.class));
+        r.setPlano(Plan.valueOf(rs.getString("plan")));
+        r.setDataInicio(rs.getObject("start_date", LocalDate.class));
+        r.setDataExpiracao(rs.getObject("expiration_date", LocalDate.class));
+        r.setStatus(SubscriptionStatus.valueOf(rs.getString("status")));
+        r.setAutoRenew(rs.getBoolean("auto_renew"));
+        r.setRenewalFailures(rs.getInt("renewal_failures"));
+        OffsetDateTime next = rs.getObject("next_renewal_attempt_at", OffsetDateTime.class);
+        r.setNextRenewalAttemptAt(next != null ? next.toInstant() : null);
+        return r;
+    }
+}
@@ -0,0 +1,31 @@
+package br.com.ricarte.assinaflow.subscription;
+
+import br.com.ricarte.assinaflow.subscription.dto.ActiveLookupRequest;
+import br.com.ricarte.assinaflow.subscription.dto.SubscriptionResponse;
+import jakarta.validation.Valid;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Entitlement checks for many users in one round trip (family accounts, batch jobs).
+ */
+@RestController
+@RequestMapping("/api/v1/subscriptions")
+public class SubscriptionLookupController {
+
+    private final SubscriptionService subscriptionService;
+
+    public SubscriptionLookupController(SubscriptionService subscriptionService) {
+        this.subscriptionService = subscriptionService;
+    }
+
+    /**
+     * Maps each requested user id to its active subscription, or null when it has none.
+     */
+    @PostMapping("/active/lookup")
+    public Map<UUID, SubscriptionResponse> lookupActive(@Valid @RequestBody ActiveLookupRequest req) {
+        return subscriptionService.getActiveByUsers(req.getUserIds());
+    }
+}
@@ -1,9 +1,14 @@
 package br.com.ricarte.assinaflow.subscription;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface SubscriptionRenewalAttemptRepository extends JpaRepository<SubscriptionRenewalAttemptEntity, UUID> {
@@ -12,5 +17,31 @@ public interface SubscriptionRenewalAttemptRepository extends JpaRepository<Subs
 
     boolean existsBySubscriptionIdAndCycleExpirationDateAndAttemptNumber(UUID subscriptionId, LocalDate cycleExpirationDate, int attemptNumber);
 
+    Optional<SubscriptionRenewalAttemptEntity> findBySubscriptionIdAndCycleExpirationDateAndAttemptNumber(
+            UUID subscriptionId, LocalDate cycleExpirationDate, int attemptNumber);
+
     List<SubscriptionRenewalAttemptEntity> findBySubscriptionIdOrderByAttemptedAtDesc(UUID subscriptionId);
+
+    List<SubscriptionRenewalAttemptEntity> findBySubscriptionIdInAndCycleExpirationDateIn(
+            Collection<UUID> subscriptionIds, Collection<LocalDate> cycleExpirationDates);
+
+    /** PENDING attempts reserved before the cutoff (idx_renewal_attempts_pending), oldest first. */
+    @Query(value = """
+            SELECT *
+            FROM subscription_renewal_attempts
+            WHERE result = 'PENDING'
+              AND attempted_at < :before
+            ORDER BY attempted_at ASC
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<SubscriptionRenewalAttemptEntity> lockStalePending(@Param("before") Instant before, @Param("limit") int limit);
+
+    @Query(value = """
+            SELECT count(*)
+            FROM subscription_renewal_attempts
+            WHERE result = 'PENDING'
+              AND attempted_at < :before
+            """, nativeQuery = true)
+    long countStalePending(@Param("before") Instant before);
 }
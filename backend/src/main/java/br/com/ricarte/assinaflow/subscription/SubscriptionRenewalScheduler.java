@@ -13,17 +13,34 @@ public class SubscriptionRenewalScheduler {
     private static final Logger log = LoggerFactory.getLogger(SubscriptionRenewalScheduler.class);
 
     private final RenewalService renewalService;
+    private final RenewalWorkerPool renewalWorkerPool;
+    private final PendingAttemptReconciler pendingAttemptReconciler;
 
-    public SubscriptionRenewalScheduler(RenewalService renewalService) {
+    public SubscriptionRenewalScheduler(
+            RenewalService renewalService,
+            RenewalWorkerPool renewalWorkerPool,
+            PendingAttemptReconciler pendingAttemptReconciler
+    ) {
         this.renewalService = renewalService;
+        this.renewalWorkerPool = renewalWorkerPool;
+        this.pendingAttemptReconciler = pendingAttemptReconciler;
     }
 
+    /**
+     * Hands the run to the worker pool so the shared scheduling thread is not blocked
+     * while the due set drains.
+     *
+     * With app.renewal.pacing.enabled each run only sees the renewals whose offset inside the
+     * day has passed (see {@link RenewalPacing}), so the billing day is released a slice at a
+     * time instead of all at 00:00.
+     */
     @Scheduled(cron = "${app.renewal.scheduler.cron:0 */5 * * * *}", zone = "UTC")
     public void runRenewals() {
-        int processed = renewalService.processDueRenewals(100);
-        if (processed > 0) {
-            log.info("runRenewals processed={}", processed);
-        }
+        renewalWorkerPool.drain().thenAccept(processed -> {
+            if (processed > 0) {
+                log.info("runRenewals processed={}", processed);
+            }
+        });
     }
 
     @Scheduled(cron = "${app.cancellation.scheduler.cron:0 10 0 * * *}", zone = "UTC")
@@ -33,4 +50,12 @@ public class SubscriptionRenewalScheduler {
             log.info("finalizeCancellations processed={}", processed);
         }
     }
+
+    @Scheduled(cron = "${app.renewal.reconcile.cron:0 */5 * * * *}", zone = "UTC")
+    public void reconcilePendingAttempts() {
+        int flagged = pendingAttemptReconciler.reconcile();
+        if (flagged > 0) {
+            log.warn("reconcilePendingAttempts flagged={}", flagged);
+        }
+    }
 }
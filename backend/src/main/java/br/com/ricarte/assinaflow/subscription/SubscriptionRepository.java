@@ -1,11 +1,16 @@
 package br.com.ricarte.assinaflow.subscription;
 
+import br.com.ricarte.assinaflow.subscription.dto.SubscriptionResponse;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 
 import java.time.Instant;
 import java.time.LocalDate;
@@ -16,16 +21,94 @@ import java.util.UUID;
 
 public interface SubscriptionRepository extends JpaRepository<SubscriptionEntity, UUID> {
 
+    String RESPONSE_PROJECTION = "new br.com.ricarte.assinaflow.subscription.dto.SubscriptionResponse("
+            + "s.id, s.userId, s.plan, s.startDate, s.expirationDate, s.status,"
+            + " s.autoRenew, s.renewalFailures, s.nextRenewalAttemptAt)";
+
+    String HISTORY_ROW_PROJECTION = "new br.com.ricarte.assinaflow.subscription.SubscriptionHistoryRow("
+            + "s.id, s.userId, s.plan, s.startDate, s.expirationDate, s.status,"
+            + " s.autoRenew, s.renewalFailures, s.nextRenewalAttemptAt, s.createdAt)";
+
     boolean existsByUserIdAndStatusIn(UUID userId, Collection<SubscriptionStatus> statuses);
 
     Optional<SubscriptionEntity> findFirstByUserIdAndStatusIn(UUID userId, Collection<SubscriptionStatus> statuses);
 
     List<SubscriptionEntity> findByUserIdOrderByCreatedAtDesc(UUID userId);
 
+    /**
+     * Active subscription straight into the response DTO: a constructor projection, so no
+     * entity, snapshot or dirty check is involved.
+     */
+    @Query("select " + RESPONSE_PROJECTION + " from SubscriptionEntity s"
+            + " where s.userId = :userId and s.status in :statuses")
+    Optional<SubscriptionResponse> findActiveResponse(
+            @Param("userId") UUID userId,
+            @Param("statuses") Collection<SubscriptionStatus> statuses
+    );
+
+    @Query("select " + RESPONSE_PROJECTION + " from SubscriptionEntity s"
+            + " where s.userId = :userId order by s.createdAt desc, s.id desc")
+    List<SubscriptionResponse> findHistoryResponses(@Param("userId") UUID userId);
+
+    /**
+     * History pages, newest first, keyset-paginated on (created_at, id) and served by
+     * idx_subscriptions_user_created. Projected to rows that also carry created_at for the
+     * next cursor.
+     */
+    @Query("select " + HISTORY_ROW_PROJECTION + " from SubscriptionEntity s"
+            + " where s.userId = :userId order by s.createdAt desc, s.id desc")
+    List<SubscriptionHistoryRow> findHistoryFirstPage(@Param("userId") UUID userId, Limit limit);
+
+    @Query("select " + HISTORY_ROW_PROJECTION + " from SubscriptionEntity s"
+            + " where s.userId = :userId and (s.createdAt, s.id) < (:createdAt, :id)"
+            + " order by s.createdAt desc, s.id desc")
+    List<SubscriptionHistoryRow> findHistoryPageAfter(
+            @Param("userId") UUID userId,
+            @Param("createdAt") Instant createdAt,
+            @Param("id") UUID id,
+            Limit limit
+    );
+
+    /**
+     * Active subscriptions of many users in one query. The status predicate is the one of the
+     * partial unique index uq_subscriptions_one_active_per_user, so it can serve the lookup.
+     * Loaded read-only: no snapshots are kept and the rows are never flushed.
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true"))
+    @Query(value = """
+            SELECT *
+            FROM subscriptions
+            WHERE user_id = ANY(:userIds)
+              AND status IN ('ATIVA', 'CANCELAMENTO_AGENDADO')
+            """, nativeQuery = true)
+    List<SubscriptionEntity> findActiveByUserIds(@Param("userIds") UUID[] userIds);
+
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("select s from SubscriptionEntity s where s.id = :id")
     Optional<SubscriptionEntity> findByIdForUpdate(@Param("id") UUID id);
 
+    /**
+     * Locks a set of subscriptions in one round trip. Rows are locked in id order so
+     * concurrent batches touching the same subscriptions cannot deadlock.
+     */
+    @Query(value = """
+            SELECT *
+            FROM subscriptions
+            WHERE id = ANY(:ids)
+            ORDER BY id
+            FOR UPDATE
+            """, nativeQuery = true)
+    List<SubscriptionEntity> lockAllByIdForUpdate(@Param("ids") UUID[] ids);
+
+    /**
+     * Claims due renewals. The fixed predicate is the one of the partial index
+     * idx_subscriptions_due_renewal (expiration_date, updated_at), so the scan starts at
+     * today's head of the index and never visits cancelled, suspended or exhausted rows.
+     *
+     * The last predicate holds back rows whose {@link RenewalPacing} offset has not passed yet;
+     * with pacing off paceWindow is 1 and every row is released. It is not part of any index
+     * (paceWindow is a parameter), so rows of the day not released yet are read and filtered.
+     */
     @Query(value = """
             SELECT *
             FROM subscriptions
@@ -35,6 +118,7 @@ public interface SubscriptionRepository extends JpaRepository<SubscriptionEntity
               AND expiration_date = :today
               AND (next_renewal_attempt_at IS NULL OR next_renewal_attempt_at <= :now)
               AND (renewal_in_flight_until IS NULL OR renewal_in_flight_until <= :now)
+              AND ('x' || right(id::text, 8))::bit(32)::bigint % :paceWindow <= :paceElapsed
             ORDER BY expiration_date ASC, updated_at ASC
             LIMIT :limit
             FOR UPDATE SKIP LOCKED
@@ -42,9 +126,127 @@ public interface SubscriptionRepository extends JpaRepository<SubscriptionEntity
     List<SubscriptionEntity> lockBatchDueForRenewal(
             @Param("today") LocalDate today,
             @Param("now") Instant now,
+            @Param("paceWindow") long paceWindow,
+            @Param("paceElapsed") long paceElapsed,
+            @Param("limit") int limit
+    );
+
+    /** Same claim for a single row, used to redo the rows of a rolled-back chunk. */
+    @Query(value = """
+            SELECT *
+            FROM subscriptions
+            WHERE id = :id
+              AND status = 'ATIVA'
+              AND auto_renew = true
+              AND renewal_failures < 3
+              AND expiration_date = :today
+              AND (next_renewal_attempt_at IS NULL OR next_renewal_attempt_at <= :now)
+              AND (renewal_in_flight_until IS NULL OR renewal_in_flight_until <= :now)
+              AND ('x' || right(id::text, 8))::bit(32)::bigint % :paceWindow <= :paceElapsed
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<SubscriptionEntity> lockDueForRenewalById(
+            @Param("id") UUID id,
+            @Param("today") LocalDate today,
+            @Param("now") Instant now,
+            @Param("paceWindow") long paceWindow,
+            @Param("paceElapsed") long paceElapsed
+    );
+
+    /**
+     * Same claim restricted to one of the 64 hash(id) slots, served by
+     * idx_subscriptions_due_renewal_slot ((hashtext(id::text) & 63), expiration_date, updated_at).
+     * Workers on different slots scan disjoint index ranges instead of all skipping over the
+     * same locked rows at the head of the index. The slot expression must stay identical to
+     * the index definition.
+     */
+    @Query(value = """
+            SELECT *
+            FROM subscriptions
+            WHERE status = 'ATIVA'
+              AND auto_renew = true
+              AND renewal_failures < 3
+              AND (hashtext(id::text) & 63) = :slot
+              AND expiration_date = :today
+              AND (next_renewal_attempt_at IS NULL OR next_renewal_attempt_at <= :now)
+              AND (renewal_in_flight_until IS NULL OR renewal_in_flight_until <= :now)
+              AND ('x' || right(id::text, 8))::bit(32)::bigint % :paceWindow <= :paceElapsed
+            ORDER BY expiration_date ASC, updated_at ASC
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<SubscriptionEntity> lockBatchDueForRenewalInSlot(
+            @Param("slot") int slot,
+            @Param("today") LocalDate today,
+            @Param("now") Instant now,
+            @Param("paceWindow") long paceWindow,
+            @Param("paceElapsed") long paceElapsed,
+            @Param("limit") int limit
+    );
+
+    /**
+     * Claims due renewals from renewal_queue (see {@link RenewalQueue}): a range scan of
+     * pk_renewal_queue over [dayStart, now], so the cost follows the amount of due work and
+     * not the number of subscriptions. The subscription predicate is checked again on the
+     * joined row, which keeps the claim correct even if an entry is stale. due_at carries no
+     * pacing offset; the pacing predicate on the joined row holds back rows not yet released.
+     */
+    @Query(value = """
+            SELECT s.*
+            FROM renewal_queue q
+            JOIN subscriptions s ON s.id = q.subscription_id
+            WHERE q.due_at >= :dayStart
+              AND q.due_at <= :now
+              AND s.status = 'ATIVA'
+              AND s.auto_renew = true
+              AND s.renewal_failures < 3
+              AND s.expiration_date = :today
+              AND (s.next_renewal_attempt_at IS NULL OR s.next_renewal_attempt_at <= :now)
+              AND (s.renewal_in_flight_until IS NULL OR s.renewal_in_flight_until <= :now)
+              AND ('x' || right(s.id::text, 8))::bit(32)::bigint % :paceWindow <= :paceElapsed
+            ORDER BY q.due_at ASC, q.subscription_id ASC
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<SubscriptionEntity> lockBatchDueFromQueue(
+            @Param("today") LocalDate today,
+            @Param("dayStart") Instant dayStart,
+            @Param("now") Instant now,
+            @Param("paceWindow") long paceWindow,
+            @Param("paceElapsed") long paceElapsed,
+            @Param("limit") int limit
+    );
+
+    /** Slot-restricted variant of {@link #lockBatchDueFromQueue}, served by idx_renewal_queue_slot. */
+    @Query(value = """
+            SELECT s.*
+            FROM renewal_queue q
+            JOIN subscriptions s ON s.id = q.subscription_id
+            WHERE (hashtext(q.subscription_id::text) & 63) = :slot
+              AND q.due_at >= :dayStart
+              AND q.due_at <= :now
+              AND s.status = 'ATIVA'
+              AND s.auto_renew = true
+              AND s.renewal_failures < 3
+              AND s.expiration_date = :today
+              AND (s.next_renewal_attempt_at IS NULL OR s.next_renewal_attempt_at <= :now)
+              AND (s.renewal_in_flight_until IS NULL OR s.renewal_in_flight_until <= :now)
+              AND ('x' || right(s.id::text, 8))::bit(32)::bigint % :paceWindow <= :paceElapsed
+            ORDER BY q.due_at ASC, q.subscription_id ASC
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<SubscriptionEntity> lockBatchDueFromQueueInSlot(
+            @Param("slot") int slot,
+            @Param("today") LocalDate today,
+            @Param("dayStart") Instant dayStart,
+            @Param("now") Instant now,
+            @Param("paceWindow") long paceWindow,
+            @Param("paceElapsed") long paceElapsed,
             @Param("limit") int limit
     );
 
+    /** Served by the partial index idx_subscriptions_due_finalization. */
     @Query(value = """
             SELECT *
             FROM subscriptions
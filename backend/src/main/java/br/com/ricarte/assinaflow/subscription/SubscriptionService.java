@@ -4,17 +4,22 @@ import br.com.ricarte.assinaflow.common.exception.ConflictException;
 import br.com.ricarte.assinaflow.common.exception.NotFoundException;
 import br.com.ricarte.assinaflow.common.time.TimeProvider;
 import br.com.ricarte.assinaflow.subscription.dto.CreateSubscriptionRequest;
+import br.com.ricarte.assinaflow.subscription.dto.SubscriptionHistoryPage;
 import br.com.ricarte.assinaflow.subscription.dto.SubscriptionResponse;
 import br.com.ricarte.assinaflow.user.UserRepository;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.EnumSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 public class SubscriptionService {
@@ -22,21 +27,26 @@ public class SubscriptionService {
     private static final EnumSet<SubscriptionStatus> ACTIVE_STATUSES =
             EnumSet.of(SubscriptionStatus.ATIVA, SubscriptionStatus.CANCELAMENTO_AGENDADO);
 
+    static final int MAX_HISTORY_PAGE_SIZE = 100;
+
     private final SubscriptionRepository subscriptionRepository;
     private final UserRepository userRepository;
     private final TimeProvider timeProvider;
     private final SubscriptionCache subscriptionCache;
+    private final RenewalQueue renewalQueue;
 
     public SubscriptionService(
             SubscriptionRepository subscriptionRepository,
             UserRepository userRepository,
             TimeProvider timeProvider,
-            SubscriptionCache subscriptionCache
+            SubscriptionCache subscriptionCache,
+            RenewalQueue renewalQueue
     ) {
         this.subscriptionRepository = subscriptionRepository;
         this.userRepository = userRepository;
         this.timeProvider = timeProvider;
         this.subscriptionCache = subscriptionCache;
+        this.renewalQueue = renewalQueue;
     }
 
     @Transactional
@@ -69,27 +79,63 @@ public class SubscriptionService {
         } catch (DataIntegrityViolationException e) {
             throw new ConflictException("SUBSCRIPTION_ALREADY_ACTIVE",
                     "Usuario ja possui uma assinatura ativa (ou cancelamento agendado)." );
-        } finally {
-            subscriptionCache.evictActive(userId);
         }
+        renewalQueue.schedule(s);
+        subscriptionCache.refreshActive(s);
 
         return toResponse(s);
     }
 
-    @Transactional(readOnly = true)
-    @Cacheable(cacheNames = SubscriptionCache.ACTIVE_CACHE, key = "#userId")
+    /**
+     * Not transactional on purpose: callers waiting on a coalesced cache miss must not hold a
+     * connection; the repository call opens its own read-only transaction.
+     */
     public SubscriptionResponse getActive(UUID userId) {
-        SubscriptionEntity s = subscriptionRepository.findFirstByUserIdAndStatusIn(userId, ACTIVE_STATUSES)
+        return subscriptionCache.getActive(userId, () -> subscriptionRepository.findActiveResponse(userId, ACTIVE_STATUSES))
                 .orElseThrow(() -> new NotFoundException("SUBSCRIPTION_NOT_FOUND", "Assinatura ativa nao encontrada."));
-        return toResponse(s);
+    }
+
+    /**
+     * Active subscription of each user (null when none), deduplicated and in request order.
+     * Not transactional for the same reason as getActive.
+     */
+    public Map<UUID, SubscriptionResponse> getActiveByUsers(Collection<UUID> userIds) {
+        return subscriptionCache.getActiveAll(new LinkedHashSet<>(userIds), missing ->
+                subscriptionRepository.findActiveByUserIds(missing.toArray(UUID[]::new))
+                        .stream()
+                        .collect(Collectors.toMap(SubscriptionEntity::getUserId, SubscriptionService::toResponse)));
     }
 
     @Transactional(readOnly = true)
     public List<SubscriptionResponse> history(UUID userId) {
-        return subscriptionRepository.findByUserIdOrderByCreatedAtDesc(userId)
-                .stream()
-                .map(SubscriptionService::toResponse)
-                .toList();
+        return subscriptionRepository.findHistoryResponses(userId);
+    }
+
+    /**
+     * One page of history, newest first. Keyset pagination: the cursor carries the
+     * (created_at, id) of the last row returned, so deep pages cost the same as the first.
+     */
+    @Transactional(readOnly = true)
+    public SubscriptionHistoryPage historyPage(UUID userId, String cursor, int limit) {
+        int size = Math.min(Math.max(1, limit), MAX_HISTORY_PAGE_SIZE);
+
+        // One extra row tells whether there is a next page.
+        List<SubscriptionHistoryRow> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = subscriptionRepository.findHistoryFirstPage(userId, Limit.of(size + 1));
+        } else {
+            HistoryCursor after = HistoryCursor.decode(cursor);
+            rows = subscriptionRepository.findHistoryPageAfter(userId, after.createdAt(), after.id(), Limit.of(size + 1));
+        }
+
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            SubscriptionHistoryRow last = rows.get(size - 1);
+            nextCursor = new HistoryCursor(last.createdAt(), last.id()).encode();
+        }
+
+        return new SubscriptionHistoryPage(rows.stream().map(SubscriptionHistoryRow::toResponse).toList(), nextCursor);
     }
 
     @Transactional
@@ -106,7 +152,8 @@ public class SubscriptionService {
         s.setCancelRequestedAt(timeProvider.now());
 
         s = subscriptionRepository.save(s);
-        subscriptionCache.evictActive(userId);
+        renewalQueue.schedule(s);
+        subscriptionCache.refreshActive(s);
         return toResponse(s);
     }
 
@@ -0,0 +1,25 @@
+package br.com.ricarte.assinaflow.subscription.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.UUID;
+
+public class ActiveLookupRequest {
+
+    public static final int MAX_USER_IDS = 500;
+
+    @NotEmpty
+    @Size(max = MAX_USER_IDS)
+    private List<@NotNull UUID> userIds;
+
+    public List<UUID> getUserIds() {
+        return userIds;
+    }
+
+    public void setUserIds(List<UUID> userIds) {
+        this.userIds = userIds;
+    }
+}
@@ -0,0 +1,35 @@
+package br.com.ricarte.assinaflow.subscription.dto;
+
+import java.util.List;
+
+public class SubscriptionHistoryPage {
+
+    private List<SubscriptionResponse> items;
+
+    /** Opaque; pass it back as ?cursor= for the next page. Null on the last page. */
+    private String nextCursor;
+
+    public SubscriptionHistoryPage() {
+    }
+
+    public SubscriptionHistoryPage(List<SubscriptionResponse> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<SubscriptionResponse> getItems() {
+        return items;
+    }
+
+    public void setItems(List<SubscriptionResponse> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
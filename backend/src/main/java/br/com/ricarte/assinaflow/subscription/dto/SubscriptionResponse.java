@@ -18,6 +18,24 @@ public class SubscriptionResponse {
     private int renewalFailures;
     private Instant nextRenewalAttemptAt;
 
+    public SubscriptionResponse() {
+    }
+
+    /** Used by the JPQL constructor projections in SubscriptionRepository. */
+    public SubscriptionResponse(UUID id, UUID usuarioId, Plan plano, LocalDate dataInicio, LocalDate dataExpiracao,
+                                SubscriptionStatus status, boolean autoRenew, int renewalFailures,
+                                Instant nextRenewalAttemptAt) {
+        this.id = id;
+        this.usuarioId = usuarioId;
+        this.plano = plano;
+        this.dataInicio = dataInicio;
+        this.dataExpiracao = dataExpiracao;
+        this.status = status;
+        this.autoRenew = autoRenew;
+        this.renewalFailures = renewalFailures;
+        this.nextRenewalAttemptAt = nextRenewalAttemptAt;
+    }
+
     public UUID getId() {
         return id;
     }
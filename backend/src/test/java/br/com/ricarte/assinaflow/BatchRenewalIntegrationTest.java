@@ -0,0 +1,206 @@
+package br.com.ricarte.assinaflow;
+
+import br.com.ricarte.assinaflow.subscription.*;
+import br.com.ricarte.assinaflow.testutil.MutableTimeProvider;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = {
+        "app.renewal.batch.enabled=true",
+        "app.renewal.batch.size=2",
+        "app.renewal.batch.commitInterval=3"
+})
+public class BatchRenewalIntegrationTest extends IntegrationTestBase {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    MutableTimeProvider timeProvider;
+
+    @Autowired
+    RenewalService renewalService;
+
+    @Autowired
+    SubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    SubscriptionRenewalAttemptRepository attemptRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    void batchModeShouldRenewAllDueSubscriptionsAcrossChunks() throws Exception {
+        List<UUID> users = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            UUID userId = createUser("batch" + i + "@example.com", "Batch " + i, i == 3 ? "ALWAYS_DECLINE" : "ALWAYS_APPROVE");
+            createSubscription(userId);
+            users.add(userId);
+        }
+
+        timeProvider.setNow(Instant.parse("2025-04-10T00:00:00Z"));
+        int processed = renewalService.processDueRenewals(100);
+        assertThat(processed).isEqualTo(7);
+
+        for (int i = 0; i < users.size(); i++) {
+            SubscriptionEntity s = subscriptionRepository.findByUserIdOrderByCreatedAtDesc(users.get(i)).get(0);
+            if (i == 3) {
+                assertThat(s.getExpirationDate()).isEqualTo(LocalDate.parse("2025-04-10"));
+                assertThat(s.getRenewalFailures()).isEqualTo(1);
+            } else {
+                assertThat(s.getExpirationDate()).isEqualTo(LocalDate.parse("2025-05-10"));
+            }
+            assertThat(attemptRepository.countBySubscriptionIdAndCycleExpirationDate(s.getId(), LocalDate.parse("2025-04-10")))
+                    .isEqualTo(1);
+        }
+
+        // Nothing left to claim until the retry backoff elapses.
+        assertThat(renewalService.processDueRenewals(100)).isZero();
+    }
+
+    @Test
+    void slicedClaimsShouldOnlyTakeOwnSlotsUntilTheyAreDrained() throws Exception {
+        // Slice of each subscription: (hashtext(id) & 63) % 3. Ids are random, so keep creating
+        // until every slice owns at least one due subscription.
+        Map<Integer, List<UUID>> bySlice = new HashMap<>();
+        for (int i = 0; i < 60 && (i < 9 || bySlice.size() < 3); i++) {
+            UUID userId = createUser("sliced" + i + "@example.com", "Sliced " + i, "ALWAYS_APPROVE");
+            createSubscription(userId);
+            UUID id = subscriptionRepository.findByUserIdOrderByCreatedAtDesc(userId).get(0).getId();
+            bySlice.computeIfAbsent(sliceOf(id), k -> new ArrayList<>()).add(id);
+        }
+        assertThat(bySlice).containsOnlyKeys(0, 1, 2);
+
+        timeProvider.setNow(Instant.parse("2025-04-10T00:00:00Z"));
+
+        // max = own row count, so the run stops before a fallback claim could happen.
+        for (int slice = 0; slice < 2; slice++) {
+            List<UUID> own = bySlice.get(slice);
+            assertThat(renewalService.processDueRenewals(own.size(), slice, 3)).isEqualTo(own.size());
+            for (int other = 0; other < 3; other++) {
+                LocalDate expected = LocalDate.parse(other <= slice ? "2025-05-10" : "2025-04-10");
+                for (UUID id : bySlice.get(other)) {
+                    assertThat(subscriptionRepository.findById(id).orElseThrow().getExpirationDate()).isEqualTo(expected);
+                }
+            }
+        }
+
+        // Slice 0 is drained: it falls back to the whole due set and takes slice 2's rows.
+        assertThat(renewalService.processDueRenewals(100, 0, 3)).isEqualTo(bySlice.get(2).size());
+        for (List<UUID> ids : bySlice.values()) {
+            for (UUID id : ids) {
+                assertThat(subscriptionRepository.findById(id).orElseThrow().getExpirationDate())
+                        .isEqualTo(LocalDate.parse("2025-05-10"));
+                assertThat(attemptRepository.countBySubscriptionIdAndCycleExpirationDate(id, LocalDate.parse("2025-04-10")))
+                        .isEqualTo(1);
+            }
+        }
+        assertThat(renewalService.processDueRenewals(100, 1, 3)).isZero();
+    }
+
+    @Test
+    void failingRowShouldNotRollBackTheRestOfItsChunk() throws Exception {
+        // Own billing day, so the row left due here is never claimed by the other tests.
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            UUID userId = createUser("poison" + i + "@example.com", "Poison " + i, "ALWAYS_APPROVE");
+            createSubscription(userId, "2025-06-10");
+            ids.add(subscriptionRepository.findByUserIdOrderByCreatedAtDesc(userId).get(0).getId());
+        }
+        UUID poison = ids.get(1);
+
+        double chargesBefore = approvedCharges();
+
+        // The attempt insert of the poison row violates this constraint when its transaction flushes.
+        jdbcTemplate.execute("ALTER TABLE subscription_renewal_attempts ADD CONSTRAINT it_poison_row CHECK (subscription_id <> '" + poison + "')");
+        try {
+            timeProvider.setNow(Instant.parse("2025-07-10T00:00:00Z"));
+            assertThat(renewalService.processDueRenewals(100)).isEqualTo(4);
+            // Each row went to the gateway exactly once: nothing was redone after the failure.
+            assertThat(approvedCharges() - chargesBefore).isEqualTo(5);
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE subscription_renewal_attempts DROP CONSTRAINT it_poison_row");
+        }
+
+        for (UUID id : ids) {
+            SubscriptionEntity s = subscriptionRepository.findById(id).orElseThrow();
+            boolean renewed = !id.equals(poison);
+            assertThat(s.getExpirationDate()).isEqualTo(LocalDate.parse(renewed ? "2025-08-10" : "2025-07-10"));
+            assertThat(attemptRepository.countBySubscriptionIdAndCycleExpirationDate(id, LocalDate.parse("2025-07-10")))
+                    .isEqualTo(renewed ? 1 : 0);
+        }
+
+        // The poison row keeps its claim lease and is retried once it runs out.
+        assertThat(subscriptionRepository.findById(poison).orElseThrow().getRenewalInFlightUntil())
+                .isEqualTo(Instant.parse("2025-07-10T00:10:00Z"));
+        assertThat(renewalService.processDueRenewals(100)).isZero();
+        timeProvider.setNow(Instant.parse("2025-07-10T00:11:00Z"));
+        assertThat(renewalService.processDueRenewals(100)).isEqualTo(1);
+        assertThat(subscriptionRepository.findById(poison).orElseThrow().getExpirationDate())
+                .isEqualTo(LocalDate.parse("2025-08-10"));
+    }
+
+    private double approvedCharges() {
+        Counter counter = meterRegistry.find("payment_charge_total").tag("approved", "true").counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private int sliceOf(UUID subscriptionId) {
+        return jdbcTemplate.queryForObject("SELECT (hashtext(?::text) & 63) % 3", Integer.class, subscriptionId.toString());
+    }
+
+    private void createSubscription(UUID userId) throws Exception {
+        createSubscription(userId, "2025-03-10");
+    }
+
+    private void createSubscription(UUID userId, String startDate) throws Exception {
+        mockMvc.perform(post("/api/v1/users/{userId}/subscriptions", userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(String.format("""
+                                {"plano":"BASICO","dataInicio":"%s"}
+                                """, startDate)))
+                .andExpect(status().isCreated());
+    }
+
+    private UUID createUser(String email, String nome, String behavior) throws Exception {
+        String json = String.format("""
+                {"email":"%s","nome":"%s","paymentProfile":{"behavior":"%s","failNextN":0}}
+                """, email, nome, behavior);
+
+        var res = mockMvc.perform(post("/api/v1/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isCreated())
+                .andReturn();
+
+        JsonNode body = objectMapper.readTree(res.getResponse().getContentAsString());
+        return UUID.fromString(body.get("id").asText());
+    }
+}
@@ -0,0 +1,127 @@
+package br.com.ricarte.assinaflow;
+
+import br.com.ricarte.assinaflow.outbox.OutboxRepository;
+import br.com.ricarte.assinaflow.outbox.OutboxStatus;
+import br.com.ricarte.assinaflow.subscription.SubscriptionEntity;
+import br.com.ricarte.assinaflow.subscription.SubscriptionRepository;
+import br.com.ricarte.assinaflow.testutil.MutableTimeProvider;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.RabbitMQContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Scheduling is disabled, so the only thing that can publish the enqueued event is the
+ * LISTEN/NOTIFY wakeup.
+ */
+@Testcontainers
+@SpringBootTest(classes = {AssinaFlowApplication.class, br.com.ricarte.assinaflow.testutil.TestTimeProviderConfig.class})
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "app.scheduler.enabled=false",
+        "app.payments.async.enabled=true",
+        "app.outbox.notify.enabled=true",
+        "spring.cache.type=simple"
+})
+public class OutboxNotifyIntegrationTest {
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("subscriptions")
+            .withUsername("subscriptions")
+            .withPassword("subscriptions");
+
+    @Container
+    static final RabbitMQContainer rabbit = new RabbitMQContainer("rabbitmq:3-management-alpine");
+
+    @DynamicPropertySource
+    static void registerProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+
+        registry.add("spring.rabbitmq.host", rabbit::getHost);
+        registry.add("spring.rabbitmq.port", rabbit::getAmqpPort);
+        registry.add("spring.rabbitmq.username", () -> "guest");
+        registry.add("spring.rabbitmq.password", () -> "guest");
+    }
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    MutableTimeProvider timeProvider;
+
+    @Autowired
+    br.com.ricarte.assinaflow.subscription.RenewalService renewalService;
+
+    @Autowired
+    OutboxRepository outboxRepository;
+
+    @Autowired
+    SubscriptionRepository subscriptionRepository;
+
+    @Test
+    void enqueueCommitShouldWakePublisherWithoutPolling() throws Exception {
+        UUID userId = createUser("notify@example.com", "Notify");
+
+        mockMvc.perform(post("/api/v1/users/{userId}/subscriptions", userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"plano":"PREMIUM","dataInicio":"2025-03-10"}
+                                """))
+                .andExpect(status().isCreated());
+
+        timeProvider.setNow(Instant.parse("2025-04-10T00:00:00Z"));
+
+        assertThat(renewalService.processDueRenewals(10)).isEqualTo(1);
+
+        Awaitility.await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> {
+            assertThat(outboxRepository.findAll())
+                    .singleElement()
+                    .satisfies(e -> assertThat(e.getStatus()).isEqualTo(OutboxStatus.SENT));
+
+            SubscriptionEntity s = subscriptionRepository.findByUserIdOrderByCreatedAtDesc(userId).get(0);
+            assertThat(s.getExpirationDate()).isEqualTo(LocalDate.parse("2025-05-10"));
+        });
+    }
+
+    private UUID createUser(String email, String nome) throws Exception {
+        String json = String.format("""
+                {"email":"%s","nome":"%s","paymentProfile":{"behavior":"ALWAYS_APPROVE","failNextN":0}}
+                """, email, nome);
+
+        var res = mockMvc.perform(post("/api/v1/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isCreated())
+                .andReturn();
+
+        JsonNode body = objectMapper.readTree(res.getResponse().getContentAsString());
+        return UUID.fromString(body.get("id").asText());
+    }
+}
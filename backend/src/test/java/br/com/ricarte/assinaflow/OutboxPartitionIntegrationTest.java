@@ -0,0 +1,129 @@
+package br.com.ricarte.assinaflow;
+
+import br.com.ricarte.assinaflow.outbox.OutboxEventEntity;
+import br.com.ricarte.assinaflow.outbox.OutboxEventType;
+import br.com.ricarte.assinaflow.outbox.OutboxPartitionService;
+import br.com.ricarte.assinaflow.outbox.OutboxRepository;
+import br.com.ricarte.assinaflow.outbox.OutboxStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestPropertySource(properties = {
+        "app.outbox.partitions.premakeDays=3",
+        "app.outbox.retention.days=7"
+})
+public class OutboxPartitionIntegrationTest extends IntegrationTestBase {
+
+    @Autowired
+    OutboxPartitionService partitionService;
+
+    @Autowired
+    OutboxRepository outboxRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldPremakePartitionsAndPruneOldOnesKeepingDeadRows() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+
+        // Migration creates default + legacy (named after yesterday) + today
+        assertThat(partitions()).contains("outbox_events_default", partitionName(today.minusDays(1)), partitionName(today));
+
+        assertThat(partitionService.ensurePartitions(today)).isEqualTo(3);
+        assertThat(partitionService.ensurePartitions(today)).isZero();
+        assertThat(partitions()).contains(partitionName(today.plusDays(3)));
+
+        // Rows in the legacy partition
+        UUID sent = insert(OutboxStatus.SENT);
+        UUID dead = insert(OutboxStatus.DEAD);
+        UUID pending = insert(OutboxStatus.PENDING);
+
+        // Cutoff = today: only the legacy partition is past retention, but it still has a PENDING row
+        LocalDate pruneDay = today.plusDays(7);
+        assertThat(partitionService.prune(pruneDay)).isZero();
+        assertThat(outboxRepository.findById(pending)).isPresent();
+
+        OutboxEventEntity p = outboxRepository.findById(pending).orElseThrow();
+        p.setStatus(OutboxStatus.SENT);
+        outboxRepository.save(p);
+
+        assertThat(partitionService.prune(pruneDay)).isEqualTo(1);
+        assertThat(partitions()).doesNotContain(partitionName(today.minusDays(1))).contains(partitionName(today));
+        assertThat(outboxRepository.findById(sent)).isEmpty();
+        assertThat(outboxRepository.findById(dead)).isEmpty();
+
+        List<UUID> archived = jdbcTemplate.queryForList("SELECT id FROM outbox_events_dead", UUID.class);
+        assertThat(archived).containsExactly(dead);
+    }
+
+    @Test
+    void rowsInTheDefaultPartitionShouldBeMovedIntoTheirOwnPartition() {
+        // A day the premake never covered: its rows land in the default partition.
+        LocalDate missed = LocalDate.now(ZoneOffset.UTC).plusDays(30);
+        UUID stranded = insert(OutboxStatus.PENDING, missed.atStartOfDay(ZoneOffset.UTC).toInstant().plusSeconds(60));
+        assertThat(defaultRows()).isEqualTo(1);
+
+        // Creating that day's partition used to fail for as long as the row sat in the default.
+        assertThat(partitionService.ensurePartitions(missed)).isEqualTo(4);
+
+        assertThat(partitions()).contains(partitionName(missed));
+        assertThat(defaultRows()).isZero();
+        assertThat(partitionService.defaultRows()).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM " + partitionName(missed) + " WHERE id = ?",
+                Long.class, stranded)).isEqualTo(1);
+        assertThat(outboxRepository.findById(stranded)).isPresent();
+    }
+
+    private long defaultRows() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM outbox_events_default", Long.class);
+    }
+
+    private UUID insert(OutboxStatus status) {
+        return insert(status, Instant.parse("2025-01-01T00:00:00Z"));
+    }
+
+    private UUID insert(OutboxStatus status, Instant createdAt) {
+        UUID id = UUID.randomUUID();
+
+        OutboxEventEntity e = new OutboxEventEntity();
+        e.setId(id);
+        e.setAggregateType("SUBSCRIPTION");
+        e.setAggregateId(UUID.randomUUID());
+        e.setEventType(OutboxEventType.PAYMENT_CHARGE_REQUESTED.name());
+        e.setIdempotencyKey(id.toString());
+        e.setPayload("{}");
+        e.setStatus(status);
+        e.setCreatedAt(createdAt);
+        e.setNextAttemptAt(createdAt);
+        if (status == OutboxStatus.DEAD) {
+            e.setDeadAt(Instant.parse("2025-01-01T01:00:00Z"));
+            e.setLastError("broker down");
+        }
+        outboxRepository.save(e);
+        return id;
+    }
+
+    private List<String> partitions() {
+        return jdbcTemplate.queryForList("""
+                SELECT c.relname
+                FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = 'outbox_events'::regclass
+                """, String.class);
+    }
+
+    private static String partitionName(LocalDate day) {
+        return "outbox_events_p" + day.format(java.time.format.DateTimeFormatter.BASIC_ISO_DATE);
+    }
+}
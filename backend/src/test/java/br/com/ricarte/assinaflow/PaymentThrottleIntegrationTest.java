@@ -0,0 +1,117 @@
+package br.com.ricarte.assinaflow;
+
+import br.com.ricarte.assinaflow.subscription.*;
+import br.com.ricarte.assinaflow.testutil.MutableTimeProvider;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = {
+        "app.payments.throttle.enabled=true",
+        "app.payments.throttle.ratePerSecond=1000",
+        "app.payments.throttle.burst=1",
+        "app.payments.throttle.maxWaitMs=100",
+        "app.payments.throttle.planRates=PREMIUM=1"
+})
+public class PaymentThrottleIntegrationTest extends IntegrationTestBase {
+
+    private static final Instant BILLING_DAY = Instant.parse("2025-04-10T01:00:00Z");
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    MutableTimeProvider timeProvider;
+
+    @Autowired
+    RenewalService renewalService;
+
+    @Autowired
+    SubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    void throttledRenewalsShouldBeDeferredWithoutCountingAsFailures() throws Exception {
+        List<UUID> subscriptions = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            subscriptions.add(createSubscription(createUser("throttled" + i + "@example.com")));
+        }
+
+        // The shared bucket lets the worker claim; inside the transaction the PREMIUM bucket
+        // has one token, so the first charge goes through and the other two are pushed back.
+        timeProvider.setNow(BILLING_DAY);
+        assertThat(renewalService.processDueRenewals(100)).isEqualTo(3);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM subscription_renewal_attempts", Long.class))
+                .isEqualTo(1);
+        int renewed = 0;
+        for (UUID id : subscriptions) {
+            SubscriptionEntity s = subscriptionRepository.findById(id).orElseThrow();
+            assertThat(s.getRenewalFailures()).isZero();
+            if (s.getExpirationDate().equals(LocalDate.parse("2025-05-10"))) {
+                renewed++;
+            } else {
+                assertThat(s.getExpirationDate()).isEqualTo(LocalDate.parse("2025-04-10"));
+                assertThat(s.getNextRenewalAttemptAt()).isAfter(BILLING_DAY);
+            }
+        }
+        assertThat(renewed).isEqualTo(1);
+        assertThat(meterRegistry.get("renewal_deferred_total").tag("reason", "throttled").counter().count())
+                .isEqualTo(2);
+
+        // Once the bucket refills, a deferred row is charged on its next pass.
+        Thread.sleep(1100);
+        timeProvider.setNow(BILLING_DAY.plus(Duration.ofMinutes(1)));
+        renewalService.processDueRenewals(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM subscription_renewal_attempts", Long.class))
+                .isEqualTo(2);
+    }
+
+    private UUID createSubscription(UUID userId) throws Exception {
+        var res = mockMvc.perform(post("/api/v1/users/{userId}/subscriptions", userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"plano":"PREMIUM","dataInicio":"2025-03-10"}
+                                """))
+                .andExpect(status().isCreated())
+                .andReturn();
+        return UUID.fromString(objectMapper.readTree(res.getResponse().getContentAsString()).get("id").asText());
+    }
+
+    private UUID createUser(String email) throws Exception {
+        String json = String.format("""
+                {"email":"%s","nome":"Throttled","paymentProfile":{"behavior":"ALWAYS_APPROVE","failNextN":0}}
+                """, email);
+
+        var res = mockMvc.perform(post("/api/v1/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isCreated())
+                .andReturn();
+        return UUID.fromString(objectMapper.readTree(res.getResponse().getContentAsString()).get("id").asText());
+    }
+}
@@ -0,0 +1,112 @@
+package br.com.ricarte.assinaflow;
+
+import br.com.ricarte.assinaflow.subscription.*;
+import br.com.ricarte.assinaflow.testutil.MutableTimeProvider;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = {
+        "app.renewal.pacing.enabled=true",
+        "app.renewal.pacing.windowMinutes=60"
+})
+public class RenewalPacingIntegrationTest extends IntegrationTestBase {
+
+    private static final Instant DAY_START = Instant.parse("2025-04-10T00:00:00Z");
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    MutableTimeProvider timeProvider;
+
+    @Autowired
+    RenewalService renewalService;
+
+    @Autowired
+    RenewalPacing renewalPacing;
+
+    @Autowired
+    SubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void renewalsShouldBeReleasedAtTheirOffsetWithinTheExpirationDay() throws Exception {
+        List<UUID> subscriptions = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            subscriptions.add(createSubscription(createUser("paced" + i + "@example.com")));
+        }
+
+        // The queue entry stays at the start of the day; the claim applies the offset.
+        for (UUID id : subscriptions) {
+            assertThat(dueAt(id)).isEqualTo(DAY_START);
+        }
+
+        Instant halfway = DAY_START.plus(Duration.ofMinutes(30));
+        long releasedByHalfway = subscriptions.stream()
+                .filter(id -> !DAY_START.plus(renewalPacing.offset(id)).isAfter(halfway))
+                .count();
+
+        timeProvider.setNow(halfway);
+        assertThat(renewalService.processDueRenewals(100)).isEqualTo((int) releasedByHalfway);
+        for (UUID id : subscriptions) {
+            boolean released = !DAY_START.plus(renewalPacing.offset(id)).isAfter(halfway);
+            assertThat(subscriptionRepository.findById(id).orElseThrow().getExpirationDate())
+                    .isEqualTo(LocalDate.parse(released ? "2025-05-10" : "2025-04-10"));
+        }
+
+        // Billing date unchanged: everything renews on 2025-04-10, once the window has passed.
+        timeProvider.setNow(DAY_START.plus(Duration.ofMinutes(60)));
+        assertThat(renewalService.processDueRenewals(100)).isEqualTo(subscriptions.size() - (int) releasedByHalfway);
+    }
+
+    private Instant dueAt(UUID subscriptionId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT due_at FROM renewal_queue WHERE subscription_id = ?", Timestamp.class, subscriptionId).toInstant();
+    }
+
+    private UUID createSubscription(UUID userId) throws Exception {
+        var res = mockMvc.perform(post("/api/v1/users/{userId}/subscriptions", userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"plano":"BASICO","dataInicio":"2025-03-10"}
+                                """))
+                .andExpect(status().isCreated())
+                .andReturn();
+        return UUID.fromString(objectMapper.readTree(res.getResponse().getContentAsString()).get("id").asText());
+    }
+
+    private UUID createUser(String email) throws Exception {
+        String json = String.format("""
+                {"email":"%s","nome":"Paced","paymentProfile":{"behavior":"ALWAYS_APPROVE","failNextN":0}}
+                """, email);
+
+        var res = mockMvc.perform(post("/api/v1/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isCreated())
+                .andReturn();
+        return UUID.fromString(objectMapper.readTree(res.getResponse().getContentAsString()).get("id").asText());
+    }
+}
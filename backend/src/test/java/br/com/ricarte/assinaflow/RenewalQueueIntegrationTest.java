@@ -0,0 +1,111 @@
+package br.com.ricarte.assinaflow;
+
+import br.com.ricarte.assinaflow.subscription.*;
+import br.com.ricarte.assinaflow.testutil.MutableTimeProvider;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "app.renewal.queue.enabled=true")
+public class RenewalQueueIntegrationTest extends IntegrationTestBase {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    MutableTimeProvider timeProvider;
+
+    @Autowired
+    RenewalService renewalService;
+
+    @Autowired
+    SubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void queueShouldFollowSubscriptionThroughRenewalRetryAndCancellation() throws Exception {
+        UUID approved = createSubscription(createUser("queue-ok@example.com", "ALWAYS_APPROVE"));
+        UUID declined = createSubscription(createUser("queue-ko@example.com", "ALWAYS_DECLINE"));
+        UUID cancelUser = createUser("queue-cancel@example.com", "ALWAYS_APPROVE");
+        UUID cancelled = createSubscription(cancelUser);
+
+        assertThat(dueAt(approved)).isEqualTo(Instant.parse("2025-04-10T00:00:00Z"));
+        assertThat(dueAt(declined)).isEqualTo(Instant.parse("2025-04-10T00:00:00Z"));
+        assertThat(dueAt(cancelled)).isEqualTo(Instant.parse("2025-04-10T00:00:00Z"));
+
+        mockMvc.perform(post("/api/v1/users/{userId}/subscriptions/cancel", cancelUser))
+                .andExpect(status().isOk());
+        assertThat(dueAt(cancelled)).isNull();
+
+        timeProvider.setNow(Instant.parse("2025-04-10T00:00:00Z"));
+        assertThat(renewalService.processDueRenewals(100)).isEqualTo(2);
+
+        assertThat(dueAt(approved)).isEqualTo(Instant.parse("2025-05-10T00:00:00Z"));
+        assertThat(subscriptionRepository.findById(approved).orElseThrow().getExpirationDate())
+                .isEqualTo(LocalDate.parse("2025-05-10"));
+        // The retry backoff is the queue entry itself.
+        assertThat(dueAt(declined)).isEqualTo(Instant.parse("2025-04-10T00:15:00Z"));
+        assertThat(renewalService.processDueRenewals(100)).isZero();
+
+        timeProvider.setNow(Instant.parse("2025-04-10T00:15:00Z"));
+        assertThat(renewalService.processDueRenewals(100)).isEqualTo(1);
+        assertThat(dueAt(declined)).isEqualTo(Instant.parse("2025-04-10T01:15:00Z"));
+
+        timeProvider.setNow(Instant.parse("2025-04-10T01:15:00Z"));
+        assertThat(renewalService.processDueRenewals(100)).isEqualTo(1);
+        assertThat(subscriptionRepository.findById(declined).orElseThrow().getStatus()).isEqualTo(SubscriptionStatus.SUSPENSA);
+        assertThat(dueAt(declined)).isNull();
+    }
+
+    private Instant dueAt(UUID subscriptionId) {
+        List<Timestamp> due = jdbcTemplate.queryForList(
+                "SELECT due_at FROM renewal_queue WHERE subscription_id = ?", Timestamp.class, subscriptionId);
+        return due.isEmpty() ? null : due.get(0).toInstant();
+    }
+
+    private UUID createSubscription(UUID userId) throws Exception {
+        var res = mockMvc.perform(post("/api/v1/users/{userId}/subscriptions", userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"plano":"BASICO","dataInicio":"2025-03-10"}
+                                """))
+                .andExpect(status().isCreated())
+                .andReturn();
+        return UUID.fromString(objectMapper.readTree(res.getResponse().getContentAsString()).get("id").asText());
+    }
+
+    private UUID createUser(String email, String behavior) throws Exception {
+        String json = String.format("""
+                {"email":"%s","nome":"Queue","paymentProfile":{"behavior":"%s","failNextN":0}}
+                """, email, behavior);
+
+        var res = mockMvc.perform(post("/api/v1/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isCreated())
+                .andReturn();
+
+        JsonNode body = objectMapper.readTree(res.getResponse().getContentAsString());
+        return UUID.fromString(body.get("id").asText());
+    }
+}
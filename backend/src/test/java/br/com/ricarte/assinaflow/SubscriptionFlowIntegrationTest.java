@@ -4,12 +4,16 @@ import br.com.ricarte.assinaflow.subscription.*;
 import br.com.ricarte.assinaflow.testutil.MutableTimeProvider;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
@@ -86,6 +90,89 @@ public class SubscriptionFlowIntegrationTest extends IntegrationTestBase {
                 .andExpect(jsonPath("$.code").value("SUBSCRIPTION_ALREADY_ACTIVE"));
     }
 
+    @Test
+    void bulkLookupShouldMapEveryUserToItsActiveSubscription() throws Exception {
+        UUID withSub = createUser("bulk-with@example.com", "Bulk With", "ALWAYS_APPROVE", 0);
+        UUID withoutSub = createUser("bulk-without@example.com", "Bulk Without", "ALWAYS_APPROVE", 0);
+
+        mockMvc.perform(post("/api/v1/users/{userId}/subscriptions", withSub)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"plano":"FAMILIA","dataInicio":"2025-03-10"}
+                                """))
+                .andExpect(status().isCreated());
+
+        String body = String.format("""
+                {"userIds":["%s","%s","%s"]}
+                """, withoutSub, withSub, withoutSub);
+
+        // Twice: misses from one query, then hits (including the cached absent entry)
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/api/v1/subscriptions/active/lookup")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(body))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(2))
+                    .andExpect(jsonPath("$['" + withSub + "'].plano").value("FAMILIA"))
+                    .andExpect(jsonPath("$['" + withoutSub + "']").value(Matchers.nullValue()));
+        }
+
+        mockMvc.perform(post("/api/v1/subscriptions/active/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"userIds":[]}
+                                """))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void historyShouldPageWithCursorAndStream() throws Exception {
+        UUID userId = createUser("history@example.com", "History", "ALWAYS_APPROVE", 0);
+        for (int i = 0; i < 5; i++) {
+            SubscriptionEntity s = new SubscriptionEntity();
+            s.setId(UUID.randomUUID());
+            s.setUserId(userId);
+            s.setPlan(Plan.BASICO);
+            s.setStartDate(LocalDate.parse("2024-01-10").plusMonths(i));
+            s.setExpirationDate(LocalDate.parse("2024-02-10").plusMonths(i));
+            s.setStatus(SubscriptionStatus.CANCELADA);
+            s.setAutoRenew(false);
+            subscriptionRepository.saveAndFlush(s);
+        }
+
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            var req = get("/api/v1/users/{userId}/subscriptions/history", userId).param("limit", "2");
+            if (cursor != null) {
+                req.param("cursor", cursor);
+            }
+            JsonNode page = objectMapper.readTree(mockMvc.perform(req)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            page.get("items").forEach(item -> seen.add(item.get("dataInicio").asText()));
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(seen).containsExactly("2024-05-10", "2024-04-10", "2024-03-10", "2024-02-10", "2024-01-10");
+
+        mockMvc.perform(get("/api/v1/users/{userId}/subscriptions/history", userId).param("cursor", "nope"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("INVALID_CURSOR"));
+
+        var streamed = mockMvc.perform(get("/api/v1/users/{userId}/subscriptions", userId).param("stream", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(streamed))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(5))
+                .andExpect(jsonPath("$[0].dataInicio").value("2024-05-10"))
+                .andExpect(jsonPath("$[4].status").value("CANCELADA"));
+    }
+
     @Test
     void cancelShouldKeepAccessUntilExpirationAndShouldNotRenew() throws Exception {
         UUID userId = createUser("carol@example.com", "Carol", "ALWAYS_APPROVE", 0);
@@ -0,0 +1,110 @@
+package br.com.ricarte.assinaflow.admin;
+
+import br.com.ricarte.assinaflow.IntegrationTestBase;
+import br.com.ricarte.assinaflow.subscription.SubscriptionEntity;
+import br.com.ricarte.assinaflow.subscription.SubscriptionRepository;
+import br.com.ricarte.assinaflow.subscription.SubscriptionStatus;
+import br.com.ricarte.assinaflow.user.PaymentBehavior;
+import br.com.ricarte.assinaflow.user.PaymentProfileRepository;
+import br.com.ricarte.assinaflow.user.UserEntity;
+import br.com.ricarte.assinaflow.user.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "app.import.chunkSize=2")
+class BulkImportIntegrationTest extends IntegrationTestBase {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    PaymentProfileRepository paymentProfileRepository;
+
+    @Autowired
+    SubscriptionRepository subscriptionRepository;
+
+    @Test
+    void csvImportShouldCopyRowsAndReportRejections() throws Exception {
+        mockMvc.perform(post("/api/v1/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"email":"existing-import@example.com","nome":"Existing"}
+                                """))
+                .andExpect(status().isCreated());
+
+        String csv = """
+                email,nome,paymentBehavior,failNextN,plano,dataInicio
+                imp-a@example.com,Import A,ALWAYS_DECLINE,0,PREMIUM,2025-03-10
+                IMP-A@example.com,Dup A,,,,
+                imp-b@example.com,Import B,,,,
+                EXISTING-import@example.com,Existing Again,,,,
+                not-an-email,Bad,,,,
+                imp-c@example.com,Import C,,,FAMILIA,2025-03-15
+                imp-b@example.com,Dup B in a later chunk,,,,
+                """;
+
+        mockMvc.perform(post("/api/v1/admin/imports")
+                        .contentType(BulkImportController.CSV)
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(7))
+                .andExpect(jsonPath("$.importedUsers").value(3))
+                .andExpect(jsonPath("$.importedSubscriptions").value(2))
+                .andExpect(jsonPath("$.rejected").value(4))
+                .andExpect(jsonPath("$.rejections[?(@.line == 3)].code").value(BulkImportService.DUPLICATE_IN_FILE))
+                .andExpect(jsonPath("$.rejections[?(@.line == 5)].code").value(BulkImportService.EMAIL_EXISTS))
+                .andExpect(jsonPath("$.rejections[?(@.line == 6)].code").value(BulkImportService.INVALID_ROW))
+                // chunkSize=2: the earlier copy is already committed, so the database check catches it
+                .andExpect(jsonPath("$.rejections[?(@.line == 8)].code").value(BulkImportService.EMAIL_EXISTS));
+
+        UserEntity a = userRepository.findAll().stream()
+                .filter(u -> u.getEmail().equals("imp-a@example.com"))
+                .findFirst()
+                .orElseThrow();
+        assertThat(paymentProfileRepository.findById(a.getId()).orElseThrow().getBehavior())
+                .isEqualTo(PaymentBehavior.ALWAYS_DECLINE);
+
+        List<SubscriptionEntity> subs = subscriptionRepository.findByUserIdOrderByCreatedAtDesc(a.getId());
+        assertThat(subs).hasSize(1);
+        assertThat(subs.get(0).getStatus()).isEqualTo(SubscriptionStatus.ATIVA);
+        assertThat(subs.get(0).getExpirationDate()).isEqualTo(LocalDate.parse("2025-04-10"));
+    }
+
+    @Test
+    void ndjsonImportedUsersShouldBeUsableThroughTheApi() throws Exception {
+        String body = """
+                {"email":"nd-a@example.com","nome":"Nd A","plano":"BASICO","dataInicio":"2025-03-10"}
+                {"email":"nd-b@example.com","nome":"Nd B"}
+                """;
+
+        mockMvc.perform(post("/api/v1/admin/imports")
+                        .contentType(BulkImportController.NDJSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.importedUsers").value(2))
+                .andExpect(jsonPath("$.importedSubscriptions").value(1))
+                .andExpect(jsonPath("$.rejected").value(0));
+
+        // Uniqueness is case-insensitive for imported users too.
+        mockMvc.perform(post("/api/v1/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"email":"ND-B@example.com","nome":"Again"}
+                                """))
+                .andExpect(status().isConflict());
+    }
+}
@@ -0,0 +1,72 @@
+package br.com.ricarte.assinaflow.admin;
+
+import br.com.ricarte.assinaflow.subscription.Plan;
+import br.com.ricarte.assinaflow.user.PaymentBehavior;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BulkImportReaderTest {
+
+    @Test
+    void csvShouldMapColumnsByHeaderAndHandleQuotes() {
+        List<BulkImportRow> rows = read(BulkImportReader.csv(reader("""
+                nome,email,plano,dataInicio,paymentBehavior,failNextN
+                "Silva, Ana",ana@example.com,PREMIUM,2025-03-10,FAIL_NEXT_N,2
+
+                "Bob \"\"B\"\"\",bob@example.com,,,,
+                """)));
+
+        assertThat(rows).hasSize(2);
+
+        BulkImportRow ana = rows.get(0);
+        assertThat(ana.line()).isEqualTo(2);
+        assertThat(ana.nome()).isEqualTo("Silva, Ana");
+        assertThat(ana.plano()).isEqualTo(Plan.PREMIUM);
+        assertThat(ana.dataInicio()).isEqualTo(LocalDate.parse("2025-03-10"));
+        assertThat(ana.paymentBehavior()).isEqualTo(PaymentBehavior.FAIL_NEXT_N);
+        assertThat(ana.failNextN()).isEqualTo(2);
+
+        BulkImportRow bob = rows.get(1);
+        assertThat(bob.line()).isEqualTo(4);
+        assertThat(bob.nome()).isEqualTo("Bob \"B\"");
+        assertThat(bob.plano()).isNull();
+        assertThat(bob.paymentBehavior()).isEqualTo(PaymentBehavior.ALWAYS_APPROVE);
+        assertThat(bob.error()).isNull();
+    }
+
+    @Test
+    void unparseableLinesShouldBecomeInvalidRows() {
+        List<BulkImportRow> rows = read(BulkImportReader.ndjson(reader("""
+                {"email":"a@example.com","nome":"A","plano":"OURO"}
+                not json
+                {"email":"b@example.com","nome":"B","dataInicio":"2025-02-30"}
+                {"email":"c@example.com","nome":"C","plano":"BASICO"}
+                """), new ObjectMapper()));
+
+        assertThat(rows).extracting(BulkImportRow::line).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(rows.get(0).error()).isNotNull();
+        assertThat(rows.get(0).email()).isEqualTo("a@example.com");
+        assertThat(rows.get(1).error()).isNotNull();
+        assertThat(rows.get(2).error()).isNotNull();
+        assertThat(rows.get(3).error()).isNull();
+        assertThat(rows.get(3).plano()).isEqualTo(Plan.BASICO);
+    }
+
+    private static BufferedReader reader(String body) {
+        return new BufferedReader(new StringReader(body));
+    }
+
+    private static List<BulkImportRow> read(java.util.Iterator<BulkImportRow> it) {
+        List<BulkImportRow> rows = new ArrayList<>();
+        it.forEachRemaining(rows::add);
+        return rows;
+    }
+}
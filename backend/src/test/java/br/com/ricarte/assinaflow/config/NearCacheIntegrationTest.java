@@ -0,0 +1,144 @@
+package br.com.ricarte.assinaflow.config;
+
+import br.com.ricarte.assinaflow.IntegrationTestBase;
+import br.com.ricarte.assinaflow.subscription.ActiveSubscriptionEntry;
+import br.com.ricarte.assinaflow.subscription.SubscriptionCache;
+import br.com.ricarte.assinaflow.subscription.SubscriptionStatus;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = {
+        "spring.cache.type=redis",
+        "app.cache.near.enabled=true"
+})
+public class NearCacheIntegrationTest extends IntegrationTestBase {
+
+    @Container
+    static final GenericContainer<?> redis = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    @DynamicPropertySource
+    static void registerRedis(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.redis.host", redis::getHost);
+        registry.add("spring.data.redis.port", () -> redis.getMappedPort(6379));
+    }
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @Autowired
+    CacheMultiGet cacheMultiGet;
+
+    @Autowired
+    StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    RedisTemplate<Object, Object> redisTemplate;
+
+    @Value("${app.cache.near.invalidationChannel}")
+    String channel;
+
+    @Test
+    void activeLookupShouldBeServedFromL1AndDroppedOnRemoteInvalidation() throws Exception {
+        assertThat(cacheManager).isInstanceOf(TwoLevelCacheManager.class);
+
+        UUID userId = createUser("near@example.com", "Near");
+        String redisKey = SubscriptionCache.ACTIVE_CACHE + "::" + userId;
+
+        // No subscription yet: the 404 is cached as an absent entry, replaced on create
+        mockMvc.perform(get("/api/v1/users/{userId}/subscriptions/active", userId))
+                .andExpect(status().isNotFound());
+        assertThat(stringRedisTemplate.hasKey(redisKey)).isTrue();
+
+        mockMvc.perform(post("/api/v1/users/{userId}/subscriptions", userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"plano":"PREMIUM","dataInicio":"2025-03-10"}
+                                """))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/v1/users/{userId}/subscriptions/active", userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.plano").value("PREMIUM"));
+
+        assertThat(stringRedisTemplate.hasKey(redisKey)).isTrue();
+
+        // L2 round-trip (JSON) keeps the DTO intact
+        TwoLevelCache cache = (TwoLevelCache) cacheManager.getCache(SubscriptionCache.ACTIVE_CACHE);
+        cache.evictLocal(userId);
+        assertThat(cache.get(userId, ActiveSubscriptionEntry.class).getResponse().getDataExpiracao()).hasToString("2025-04-10");
+
+        // Entry now lives in L1 only
+        stringRedisTemplate.delete(redisKey);
+        assertThat(cache.get(userId)).isNotNull();
+
+        // Another node evicts: the local L1 copy must go away
+        redisTemplate.convertAndSend(channel, new TwoLevelCacheManager.Invalidation("other-node", SubscriptionCache.ACTIVE_CACHE, userId));
+        Awaitility.await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> assertThat(cache.get(userId)).isNull());
+
+        // Writes refresh both levels after commit
+        mockMvc.perform(get("/api/v1/users/{userId}/subscriptions/active", userId)).andExpect(status().isOk());
+        mockMvc.perform(post("/api/v1/users/{userId}/subscriptions/cancel", userId)).andExpect(status().isOk());
+        assertThat(cache.get(userId, ActiveSubscriptionEntry.class).getResponse().getStatus()).isEqualTo(SubscriptionStatus.CANCELAMENTO_AGENDADO);
+        assertThat(stringRedisTemplate.hasKey(redisKey)).isTrue();
+
+        // Multi-get: L1 misses are read from Redis with one MGET and copied back into L1
+        cache.evictLocal(userId);
+        Map<Object, Object> found = cacheMultiGet.getAll(cache, List.of(userId, UUID.randomUUID()));
+        assertThat(found).containsOnlyKeys(userId);
+        assertThat(((ActiveSubscriptionEntry) found.get(userId)).getResponse().getStatus()).isEqualTo(SubscriptionStatus.CANCELAMENTO_AGENDADO);
+        stringRedisTemplate.delete(redisKey);
+        assertThat(cache.get(userId)).isNotNull();
+
+        mockMvc.perform(post("/api/v1/subscriptions/active/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userIds\":[\"" + userId + "\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['" + userId + "'].status").value("CANCELAMENTO_AGENDADO"));
+    }
+
+    private UUID createUser(String email, String nome) throws Exception {
+        String json = String.format("""
+                {"email":"%s","nome":"%s","paymentProfile":{"behavior":"ALWAYS_APPROVE","failNextN":0}}
+                """, email, nome);
+
+        var res = mockMvc.perform(post("/api/v1/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isCreated())
+                .andReturn();
+
+        JsonNode body = objectMapper.readTree(res.getResponse().getContentAsString());
+        return UUID.fromString(body.get("id").asText());
+    }
+}
@@ -0,0 +1,68 @@
+package br.com.ricarte.assinaflow.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.amqp.RabbitAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RabbitConfigTest {
+
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(JacksonAutoConfiguration.class, RabbitAutoConfiguration.class))
+            .withUserConfiguration(RabbitConfig.class);
+
+    @Test
+    void virtualThreadFactoryShouldOnlyReplaceTheDefaultWhenEnabled() {
+        // Boot's own factory: no executor set, containers use their default threads.
+        runner.run(context -> assertThat(taskExecutor(listenerFactory(context)) instanceof VirtualThreadTaskExecutor)
+                .isFalse());
+
+        runner.withPropertyValues("app.rabbitmq.payments.virtualThreads.enabled=true")
+                .run(context -> assertThat(taskExecutor(listenerFactory(context)))
+                        .isInstanceOf(VirtualThreadTaskExecutor.class));
+    }
+
+    @Test
+    void consumersShouldFollowMaxInFlightCappedByTheThrottle() {
+        runner.withPropertyValues(
+                        "app.rabbitmq.payments.virtualThreads.enabled=true",
+                        "app.rabbitmq.payments.virtualThreads.maxInFlight=48",
+                        // The Hikari pool no longer bounds the consumers.
+                        "spring.datasource.hikari.maximum-pool-size=4")
+                .run(context -> assertConsumers(listenerFactory(context), 48));
+
+        runner.withPropertyValues(
+                        "app.rabbitmq.payments.virtualThreads.enabled=true",
+                        "app.rabbitmq.payments.virtualThreads.maxInFlight=48",
+                        "app.payments.throttle.enabled=true",
+                        "app.payments.throttle.maxConcurrent=12")
+                .run(context -> assertConsumers(listenerFactory(context), 12));
+    }
+
+    @Test
+    void paymentConsumersShouldNeverBeBelowOne() {
+        assertThat(RabbitConfig.paymentConsumers(0, false, 20)).isEqualTo(1);
+        assertThat(RabbitConfig.paymentConsumers(64, true, 0)).isEqualTo(1);
+    }
+
+    private static void assertConsumers(SimpleRabbitListenerContainerFactory factory, int expected) {
+        assertThat(ReflectionTestUtils.getField(factory, "concurrentConsumers")).isEqualTo(expected);
+        assertThat(ReflectionTestUtils.getField(factory, "maxConcurrentConsumers")).isEqualTo(expected);
+    }
+
+    /** Boot's default factory name, which the virtual-thread factory takes over when enabled. */
+    private static SimpleRabbitListenerContainerFactory listenerFactory(ApplicationContext context) {
+        return context.getBean("rabbitListenerContainerFactory", SimpleRabbitListenerContainerFactory.class);
+    }
+
+    private static Object taskExecutor(SimpleRabbitListenerContainerFactory factory) {
+        return ReflectionTestUtils.getField(factory, "taskExecutor");
+    }
+}
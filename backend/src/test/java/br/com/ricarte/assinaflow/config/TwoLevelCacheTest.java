@@ -0,0 +1,78 @@
+package br.com.ricarte.assinaflow.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TwoLevelCacheTest {
+
+    private final ConcurrentMapCache l1 = new ConcurrentMapCache("l1");
+    private final ConcurrentMapCache l2 = new ConcurrentMapCache("l2");
+    private final List<Object> invalidations = new ArrayList<>();
+    private final TwoLevelCache cache = new TwoLevelCache("activeSubscription", l1, l2, (name, key) -> invalidations.add(key));
+
+    @Test
+    void l1MissShouldBeFilledFromL2() {
+        UUID key = UUID.randomUUID();
+        l2.put(key, "value");
+
+        assertThat(cache.get(key, String.class)).isEqualTo("value");
+        assertThat(l1.get(key)).isNotNull();
+
+        // Served from L1 even if L2 loses the entry
+        l2.evict(key);
+        assertThat(cache.get(key, String.class)).isEqualTo("value");
+    }
+
+    @Test
+    void loaderShouldFillBothLevels() {
+        UUID key = UUID.randomUUID();
+
+        assertThat(cache.get(key, () -> "loaded")).isEqualTo("loaded");
+        assertThat(l1.get(key).get()).isEqualTo("loaded");
+        assertThat(l2.get(key).get()).isEqualTo("loaded");
+        assertThat(cache.get(key, () -> "reloaded")).isEqualTo("loaded");
+    }
+
+    @Test
+    void putShouldWriteBothLevelsAndBroadcast() {
+        UUID key = UUID.randomUUID();
+
+        cache.put(key, "value");
+
+        assertThat(l1.get(key).get()).isEqualTo("value");
+        assertThat(l2.get(key).get()).isEqualTo("value");
+        assertThat(invalidations).containsExactly(key);
+    }
+
+    @Test
+    void evictShouldClearBothLevelsAndBroadcast() {
+        UUID key = UUID.randomUUID();
+        l1.put(key, "value");
+        l2.put(key, "value");
+
+        cache.evict(key);
+
+        assertThat(l1.get(key)).isNull();
+        assertThat(l2.get(key)).isNull();
+        assertThat(invalidations).containsExactly(key);
+    }
+
+    @Test
+    void remoteInvalidationShouldOnlyDropLocalCopy() {
+        UUID key = UUID.randomUUID();
+        l1.put(key, "value");
+        l2.put(key, "value");
+
+        cache.evictLocal(key);
+
+        assertThat(l1.get(key)).isNull();
+        assertThat(l2.get(key)).isNotNull();
+        assertThat(invalidations).isEmpty();
+    }
+}
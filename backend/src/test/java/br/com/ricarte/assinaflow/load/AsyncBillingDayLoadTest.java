@@ -0,0 +1,122 @@
+package br.com.ricarte.assinaflow.load;
+
+import br.com.ricarte.assinaflow.outbox.OutboxPublisher;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.RabbitMQContainer;
+import org.testcontainers.junit.jupiter.Container;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Async mode: workers enqueue outbox events, a publisher loop ships them to RabbitMQ and the
+ * payment consumer renews. Per-renewal latency is outbox insert to subscription update; the
+ * outbox lag is insert to SENT. Consumer settings (app.rabbitmq.payments.*) can be passed as
+ * system properties.
+ */
+@TestPropertySource(properties = "app.payments.async.enabled=true")
+class AsyncBillingDayLoadTest extends BillingDayLoadHarness {
+
+    private static final int PUBLISH_BATCH = Integer.getInteger("load.publishBatch", 500);
+
+    @Container
+    static final RabbitMQContainer rabbit = new RabbitMQContainer("rabbitmq:3-management-alpine");
+
+    @DynamicPropertySource
+    static void registerRabbit(DynamicPropertyRegistry registry) {
+        registry.add("spring.rabbitmq.host", rabbit::getHost);
+        registry.add("spring.rabbitmq.port", rabbit::getAmqpPort);
+        registry.add("spring.rabbitmq.username", () -> "guest");
+        registry.add("spring.rabbitmq.password", () -> "guest");
+    }
+
+    @Autowired
+    OutboxPublisher outboxPublisher;
+
+    @Test
+    void billingDayAsync() throws Exception {
+        long[] enqueueLatencies;
+        long elapsed;
+        PoolSampler pool = startPoolSampler();
+        try (pool) {
+            long started = System.nanoTime();
+
+            AtomicBoolean enqueueDone = new AtomicBoolean(false);
+            CompletableFuture<Void> publisher = CompletableFuture.runAsync(() -> publishUntilDrained(enqueueDone));
+            try {
+                enqueueLatencies = drainDueRenewals();
+            } finally {
+                enqueueDone.set(true);
+            }
+            publisher.get();
+
+            awaitRenewed(Duration.ofSeconds(60 + SUBSCRIPTIONS / 100));
+            elapsed = System.nanoTime() - started;
+        }
+
+        long renewed = renewedCount();
+        Map<String, Object> renewal = jdbcTemplate.queryForMap("""
+                SELECT percentile_cont(0.5) WITHIN GROUP (ORDER BY extract(epoch FROM s.updated_at - o.created_at)) * 1000 AS p50,
+                       percentile_cont(0.99) WITHIN GROUP (ORDER BY extract(epoch FROM s.updated_at - o.created_at)) * 1000 AS p99
+                FROM outbox_events o
+                JOIN subscriptions s ON s.id = o.aggregate_id
+                """);
+        Map<String, Object> lag = jdbcTemplate.queryForMap("""
+                SELECT percentile_cont(0.5) WITHIN GROUP (ORDER BY extract(epoch FROM sent_at - created_at)) * 1000 AS p50,
+                       percentile_cont(0.99) WITHIN GROUP (ORDER BY extract(epoch FROM sent_at - created_at)) * 1000 AS p99,
+                       max(extract(epoch FROM sent_at - created_at)) * 1000 AS max
+                FROM outbox_events
+                WHERE status = 'SENT'
+                """);
+
+        report("async", renewed, elapsed, asDouble(renewal.get("p50")), asDouble(renewal.get("p99")), pool,
+                String.format("enqueueP50Ms=%.2f enqueueP99Ms=%.2f outboxLagP50Ms=%.1f outboxLagP99Ms=%.1f outboxLagMaxMs=%.1f",
+                        percentileMs(enqueueLatencies, 0.50), percentileMs(enqueueLatencies, 0.99),
+                        asDouble(lag.get("p50")), asDouble(lag.get("p99")), asDouble(lag.get("max"))));
+
+        assertThat(renewed).isEqualTo(SUBSCRIPTIONS);
+    }
+
+    /** Publishes until the enqueue phase is over and nothing is left pending. */
+    private void publishUntilDrained(AtomicBoolean enqueueDone) {
+        while (true) {
+            boolean lastRound = enqueueDone.get();
+            int published = outboxPublisher.publishPending(PUBLISH_BATCH);
+            if (published == 0) {
+                if (lastRound) {
+                    return;
+                }
+                sleep(5);
+            }
+        }
+    }
+
+    private void awaitRenewed(Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (renewedCount() < SUBSCRIPTIONS && System.nanoTime() < deadline) {
+            sleep(50);
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static double asDouble(Object v) {
+        return v == null ? 0 : ((Number) v).doubleValue();
+    }
+}
@@ -0,0 +1,222 @@
+package br.com.ricarte.assinaflow.load;
+
+import br.com.ricarte.assinaflow.IntegrationTestBase;
+import br.com.ricarte.assinaflow.admin.BulkImportRow;
+import br.com.ricarte.assinaflow.admin.BulkImportService;
+import br.com.ricarte.assinaflow.admin.dto.BulkImportReport;
+import br.com.ricarte.assinaflow.subscription.Plan;
+import br.com.ricarte.assinaflow.subscription.RenewalService;
+import br.com.ricarte.assinaflow.testutil.MutableTimeProvider;
+import br.com.ricarte.assinaflow.user.PaymentBehavior;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Billing-day load harness: seeds load.subscriptions users with one ATIVA subscription each,
+ * all expiring today (written by the COPY importer), and drains them through RenewalService
+ * with load.workers threads.
+ *
+ * Tagged "load", so the regular build skips it. Run with
+ * {@code mvn -Pload test -Dload.subscriptions=1000000 -Dload.workers=8}.
+ *
+ * Every run logs one "billing day report" line: renewals/sec, p50/p99 per-renewal latency,
+ * Hikari connection usage and, in async mode, the outbox lag.
+ */
+@Tag("load")
+abstract class BillingDayLoadHarness extends IntegrationTestBase {
+
+    private static final Logger log = LoggerFactory.getLogger(BillingDayLoadHarness.class);
+
+    static final LocalDate TODAY = LocalDate.parse("2025-04-10");
+    static final LocalDate RENEWED_EXPIRATION = TODAY.plusMonths(1);
+
+    static final int SUBSCRIPTIONS = Integer.getInteger("load.subscriptions", 10_000);
+    static final int WORKERS = Integer.getInteger("load.workers", 8);
+
+    private static final long POOL_SAMPLE_MS = 50;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    MutableTimeProvider timeProvider;
+
+    @Autowired
+    RenewalService renewalService;
+
+    @Autowired
+    BulkImportService bulkImportService;
+
+    @BeforeEach
+    void seedBillingDay() {
+        jdbcTemplate.execute("""
+                TRUNCATE subscription_renewal_attempts, renewal_queue, subscriptions, payment_profiles, users,
+                         outbox_events, outbox_idempotency_keys
+                """);
+
+        // Seeded through the COPY importer, so the seed rate doubles as an import baseline.
+        LocalDate start = TODAY.minusMonths(1);
+        Iterator<BulkImportRow> rows = LongStream.rangeClosed(1, SUBSCRIPTIONS)
+                .mapToObj(i -> new BulkImportRow(i, "load-" + i + "@example.com", "Load " + i,
+                        PaymentBehavior.ALWAYS_APPROVE, 0, Plan.PREMIUM, start))
+                .iterator();
+        BulkImportReport seeded = bulkImportService.importRows(rows);
+        assertThat(seeded.getImportedSubscriptions()).isEqualTo(SUBSCRIPTIONS);
+        jdbcTemplate.execute("ANALYZE users, payment_profiles, subscriptions");
+
+        log.info("billing day seeded subscriptions={} seedMs={} rowsPerSec={}",
+                SUBSCRIPTIONS, seeded.getElapsedMs(), SUBSCRIPTIONS * 1000L / Math.max(1, seeded.getElapsedMs()));
+
+        timeProvider.setNow(Instant.parse(TODAY + "T00:00:00Z"));
+    }
+
+    /**
+     * Runs WORKERS threads that claim one due subscription per RenewalService call until the
+     * due set is empty, timing every call that processed a row.
+     *
+     * @return per-row call latencies in nanoseconds, sorted
+     */
+    long[] drainDueRenewals() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(WORKERS);
+        try {
+            List<Future<long[]>> workers = new ArrayList<>(WORKERS);
+            for (int i = 0; i < WORKERS; i++) {
+                workers.add(executor.submit(this::drainWorker));
+            }
+
+            long[] all = new long[0];
+            for (Future<long[]> w : workers) {
+                long[] part = w.get();
+                long[] merged = Arrays.copyOf(all, all.length + part.length);
+                System.arraycopy(part, 0, merged, all.length, part.length);
+                all = merged;
+            }
+            Arrays.sort(all);
+            return all;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long[] drainWorker() {
+        long[] latencies = new long[1024];
+        int n = 0;
+        while (true) {
+            long t0 = System.nanoTime();
+            int processed = renewalService.processDueRenewals(1);
+            long elapsed = System.nanoTime() - t0;
+            if (processed == 0) {
+                return Arrays.copyOf(latencies, n);
+            }
+            if (n == latencies.length) {
+                latencies = Arrays.copyOf(latencies, n * 2);
+            }
+            latencies[n++] = elapsed;
+        }
+    }
+
+    long renewedCount() {
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM subscriptions WHERE expiration_date = ?", Long.class, Date.valueOf(RENEWED_EXPIRATION));
+        return count == null ? 0 : count;
+    }
+
+    PoolSampler startPoolSampler() {
+        return new PoolSampler(((HikariDataSource) dataSource));
+    }
+
+    static double percentileMs(long[] sortedNanos, double p) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int idx = (int) Math.ceil(p * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, idx)] / 1_000_000.0;
+    }
+
+    static void report(String mode, long renewed, long elapsedNanos, double p50Ms, double p99Ms,
+                       PoolSampler pool, String extra) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        log.info("billing day report mode={} subscriptions={} renewed={} elapsedMs={} renewalsPerSec={} "
+                        + "latencyP50Ms={} latencyP99Ms={} poolSize={} activeConnMax={} activeConnAvg={} "
+                        + "threadsAwaitingConnMax={}{}",
+                mode, SUBSCRIPTIONS, renewed, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                String.format("%.1f", renewed / seconds),
+                String.format("%.2f", p50Ms), String.format("%.2f", p99Ms),
+                pool.poolSize(), pool.maxActive(), String.format("%.1f", pool.avgActive()), pool.maxAwaiting(),
+                extra.isEmpty() ? "" : " " + extra);
+    }
+
+    /** Samples Hikari pool usage every POOL_SAMPLE_MS until closed. */
+    static final class PoolSampler implements AutoCloseable {
+
+        private final HikariPoolMXBean pool;
+        private final int poolSize;
+        private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+        private int maxActive;
+        private int maxAwaiting;
+        private long activeSum;
+        private long samples;
+
+        PoolSampler(HikariDataSource dataSource) {
+            this.pool = dataSource.getHikariPoolMXBean();
+            this.poolSize = dataSource.getMaximumPoolSize();
+            scheduler.scheduleAtFixedRate(this::sample, 0, POOL_SAMPLE_MS, TimeUnit.MILLISECONDS);
+        }
+
+        private synchronized void sample() {
+            int active = pool.getActiveConnections();
+            maxActive = Math.max(maxActive, active);
+            maxAwaiting = Math.max(maxAwaiting, pool.getThreadsAwaitingConnection());
+            activeSum += active;
+            samples++;
+        }
+
+        int poolSize() {
+            return poolSize;
+        }
+
+        synchronized int maxActive() {
+            return maxActive;
+        }
+
+        synchronized int maxAwaiting() {
+            return maxAwaiting;
+        }
+
+        synchronized double avgActive() {
+            return samples == 0 ? 0 : (double) activeSum / samples;
+        }
+
+        @Override
+        public void close() {
+            scheduler.shutdownNow();
+        }
+    }
+}
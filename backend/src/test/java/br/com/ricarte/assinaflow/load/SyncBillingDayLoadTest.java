@@ -0,0 +1,29 @@
+package br.com.ricarte.assinaflow.load;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Direct mode: every RenewalService call charges and renews one subscription in its own
+ * transaction, so the call latency is the per-renewal latency.
+ */
+class SyncBillingDayLoadTest extends BillingDayLoadHarness {
+
+    @Test
+    void billingDaySync() throws Exception {
+        long[] latencies;
+        long elapsed;
+        PoolSampler pool = startPoolSampler();
+        try (pool) {
+            long started = System.nanoTime();
+            latencies = drainDueRenewals();
+            elapsed = System.nanoTime() - started;
+        }
+
+        long renewed = renewedCount();
+        report("sync", renewed, elapsed, percentileMs(latencies, 0.50), percentileMs(latencies, 0.99), pool, "");
+
+        assertThat(renewed).isEqualTo(SUBSCRIPTIONS);
+    }
+}
@@ -0,0 +1,73 @@
+package br.com.ricarte.assinaflow.outbox;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxCountersTest {
+
+    @Mock
+    OutboxRepository outboxRepository;
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void deltasShouldApplyOnlyAfterCommit() {
+        OutboxCounters counters = new OutboxCounters(outboxRepository);
+
+        TransactionSynchronizationManager.initSynchronization();
+        counters.enqueued(3);
+        counters.deadLettered(1);
+        assertThat(counters.pending()).isZero();
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertThat(counters.pending()).isEqualTo(2);
+        assertThat(counters.dead()).isEqualTo(1);
+    }
+
+    @Test
+    void deltasShouldBeDroppedOnRollback() {
+        OutboxCounters counters = new OutboxCounters(outboxRepository);
+
+        TransactionSynchronizationManager.initSynchronization();
+        counters.enqueued(5);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertThat(counters.pending()).isZero();
+    }
+
+    @Test
+    void reconcileShouldResetCountsAndRecordDrift() {
+        OutboxCounters counters = new OutboxCounters(outboxRepository);
+        counters.enqueued(4);
+        counters.published(1);
+
+        when(outboxRepository.countByStatus(OutboxStatus.PENDING)).thenReturn(5L);
+        when(outboxRepository.countByStatus(OutboxStatus.DEAD)).thenReturn(0L);
+        counters.reconcile();
+
+        assertThat(counters.pending()).isEqualTo(5);
+        assertThat(counters.pendingDrift()).isEqualTo(2);
+        assertThat(counters.deadDrift()).isZero();
+
+        counters.published(5);
+        assertThat(counters.pending()).isZero();
+    }
+}
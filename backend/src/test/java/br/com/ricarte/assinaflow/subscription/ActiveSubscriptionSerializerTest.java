@@ -0,0 +1,64 @@
+package br.com.ricarte.assinaflow.subscription;
+
+import br.com.ricarte.assinaflow.subscription.dto.SubscriptionResponse;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ActiveSubscriptionSerializerTest {
+
+    private final ActiveSubscriptionSerializer serializer = new ActiveSubscriptionSerializer();
+
+    @Test
+    void shouldRoundTripFullResponseCompactly() {
+        SubscriptionResponse r = new SubscriptionResponse();
+        r.setId(UUID.randomUUID());
+        r.setUsuarioId(UUID.randomUUID());
+        r.setPlano(Plan.FAMILIA);
+        r.setDataInicio(LocalDate.parse("2025-03-10"));
+        r.setDataExpiracao(LocalDate.parse("2025-04-10"));
+        r.setStatus(SubscriptionStatus.CANCELAMENTO_AGENDADO);
+        r.setAutoRenew(true);
+        r.setRenewalFailures(2);
+        r.setNextRenewalAttemptAt(Instant.parse("2025-04-10T01:00:00.123456Z"));
+
+        byte[] bytes = serializer.serialize(new ActiveSubscriptionEntry(r, 1234L));
+        assertThat(bytes).hasSizeLessThanOrEqualTo(70);
+
+        ActiveSubscriptionEntry back = (ActiveSubscriptionEntry) serializer.deserialize(bytes);
+        assertThat(back.getCachedAtEpochMs()).isEqualTo(1234L);
+        assertThat(back.getResponse()).usingRecursiveComparison().isEqualTo(r);
+    }
+
+    @Test
+    void shouldRoundTripNullFieldsAndAbsentEntry() {
+        SubscriptionResponse r = new SubscriptionResponse();
+        r.setUsuarioId(UUID.randomUUID());
+        r.setStatus(SubscriptionStatus.ATIVA);
+
+        ActiveSubscriptionEntry back = (ActiveSubscriptionEntry) serializer.deserialize(
+                serializer.serialize(new ActiveSubscriptionEntry(r, 1L)));
+        assertThat(back.getResponse()).usingRecursiveComparison().isEqualTo(r);
+
+        ActiveSubscriptionEntry absent = (ActiveSubscriptionEntry) serializer.deserialize(
+                serializer.serialize(new ActiveSubscriptionEntry(null, 5L)));
+        assertThat(absent.hasResponse()).isFalse();
+        assertThat(absent.getCachedAtEpochMs()).isEqualTo(5L);
+    }
+
+    @Test
+    void otherVersionsShouldReadAsMiss() {
+        byte[] bytes = serializer.serialize(new ActiveSubscriptionEntry(null, 5L));
+        bytes[0] = (byte) (ActiveSubscriptionSerializer.VERSION + 1);
+        assertThat(serializer.deserialize(bytes)).isNull();
+
+        // JSON written before the binary codec
+        assertThat(serializer.deserialize("{\"@class\":\"x\",\"response\":null,\"cachedAtEpochMs\":1}"
+                .getBytes(StandardCharsets.UTF_8))).isNull();
+    }
+}
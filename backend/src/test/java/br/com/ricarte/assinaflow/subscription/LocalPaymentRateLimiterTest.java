@@ -0,0 +1,57 @@
+package br.com.ricarte.assinaflow.subscription;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalPaymentRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void shouldAllowBurstThenReportWaitUntilNextToken() {
+        LocalPaymentRateLimiter limiter = new LocalPaymentRateLimiter();
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire("default", 10, 5, 0)).isZero();
+        }
+
+        assertThat(limiter.tryAcquire("default", 10, 5, 0)).isEqualTo(SECOND / 10);
+        assertThat(limiter.tryAcquire("default", 10, 5, SECOND / 10)).isZero();
+    }
+
+    @Test
+    void shouldRefillUpToBurstOnly() {
+        LocalPaymentRateLimiter limiter = new LocalPaymentRateLimiter();
+        for (int i = 0; i < 2; i++) {
+            limiter.tryAcquire("default", 10, 2, 0);
+        }
+
+        long later = 60 * SECOND;
+        assertThat(limiter.tryAcquire("default", 10, 2, later)).isZero();
+        assertThat(limiter.tryAcquire("default", 10, 2, later)).isZero();
+        assertThat(limiter.tryAcquire("default", 10, 2, later)).isPositive();
+    }
+
+    @Test
+    void bucketsShouldBeIndependent() {
+        LocalPaymentRateLimiter limiter = new LocalPaymentRateLimiter();
+
+        assertThat(limiter.tryAcquire("PREMIUM", 1, 1, 0)).isZero();
+        assertThat(limiter.tryAcquire("PREMIUM", 1, 1, 0)).isPositive();
+        assertThat(limiter.tryAcquire("default", 1, 1, 0)).isZero();
+    }
+
+    @Test
+    void availableShouldReportRefilledTokensWithoutTakingThem() {
+        LocalPaymentRateLimiter limiter = new LocalPaymentRateLimiter();
+
+        assertThat(limiter.available("default", 10, 5, 0)).isEqualTo(5);
+        limiter.tryAcquire("default", 10, 5, 0);
+        assertThat(limiter.available("default", 10, 5, 0)).isEqualTo(4);
+        assertThat(limiter.available("default", 10, 5, 0)).isEqualTo(4);
+        assertThat(limiter.available("default", 10, 5, SECOND / 20)).isEqualTo(4.5);
+    }
+}
@@ -0,0 +1,201 @@
+package br.com.ricarte.assinaflow.subscription;
+
+import br.com.ricarte.assinaflow.AssinaFlowApplication;
+import br.com.ricarte.assinaflow.subscription.PaymentChargeBatchConsumer.Outcome;
+import br.com.ricarte.assinaflow.subscription.dto.CreateSubscriptionRequest;
+import br.com.ricarte.assinaflow.subscription.dto.SubscriptionResponse;
+import br.com.ricarte.assinaflow.testutil.MutableTimeProvider;
+import br.com.ricarte.assinaflow.testutil.TestTimeProviderConfig;
+import br.com.ricarte.assinaflow.user.PaymentBehavior;
+import br.com.ricarte.assinaflow.user.UserService;
+import br.com.ricarte.assinaflow.user.dto.CreateUserRequest;
+import br.com.ricarte.assinaflow.user.dto.PaymentProfileRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Testcontainers
+@SpringBootTest(classes = {AssinaFlowApplication.class, TestTimeProviderConfig.class})
+@TestPropertySource(properties = {
+        "app.scheduler.enabled=false",
+        "app.payments.async.enabled=true",
+        "app.rabbitmq.payments.batch.enabled=true",
+        "spring.cache.type=simple",
+        // Broker is never reached: the test drives the batch processing directly.
+        "spring.rabbitmq.host=127.0.0.1",
+        "spring.rabbitmq.port=1",
+        "spring.rabbitmq.connection-timeout=500ms"
+})
+class PaymentChargeBatchConsumerIntegrationTest {
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("subscriptions")
+            .withUsername("subscriptions")
+            .withPassword("subscriptions");
+
+    @DynamicPropertySource
+    static void registerProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    PaymentChargeBatchConsumer batchConsumer;
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    SubscriptionService subscriptionService;
+
+    @Autowired
+    SubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    SubscriptionRenewalAttemptRepository attemptRepository;
+
+    @Autowired
+    MutableTimeProvider timeProvider;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PendingAttemptReconciler reconciler;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    void batchShouldApplyEachMessageByItsOwnOutcome() {
+        LocalDate cycle = LocalDate.parse("2025-04-10");
+        SubscriptionResponse approve = subscribe("batch-approve@example.com", PaymentBehavior.ALWAYS_APPROVE);
+        SubscriptionResponse decline = subscribe("batch-decline@example.com", PaymentBehavior.ALWAYS_DECLINE);
+        SubscriptionResponse stale = subscribe("batch-stale@example.com", PaymentBehavior.ALWAYS_APPROVE);
+
+        timeProvider.setNow(Instant.parse("2025-04-10T00:00:00Z"));
+
+        PaymentChargeRequested approveMsg = charge(approve, cycle, 1);
+        List<PaymentChargeRequested> batch = Arrays.asList(
+                approveMsg,
+                charge(decline, cycle, 1),
+                approveMsg,
+                null,
+                charge(stale, cycle.minusMonths(1), 1),
+                new PaymentChargeRequested(null, UUID.randomUUID(), UUID.randomUUID(), cycle, 1, 1990, Instant.now())
+        );
+
+        List<Outcome> outcomes = batchConsumer.process(batch);
+
+        assertThat(outcomes).containsExactly(
+                Outcome.ACK, Outcome.ACK, Outcome.ACK, Outcome.REJECT, Outcome.ACK, Outcome.ACK);
+
+        SubscriptionEntity renewed = subscriptionRepository.findById(approve.getId()).orElseThrow();
+        assertThat(renewed.getExpirationDate()).isEqualTo(LocalDate.parse("2025-05-10"));
+        assertThat(attemptRepository.countBySubscriptionIdAndCycleExpirationDate(approve.getId(), cycle)).isEqualTo(1);
+
+        SubscriptionEntity declined = subscriptionRepository.findById(decline.getId()).orElseThrow();
+        assertThat(declined.getRenewalFailures()).isEqualTo(1);
+        assertThat(declined.getNextRenewalAttemptAt()).isEqualTo(Instant.parse("2025-04-10T00:15:00Z"));
+
+        SubscriptionEntity untouched = subscriptionRepository.findById(stale.getId()).orElseThrow();
+        assertThat(untouched.getExpirationDate()).isEqualTo(cycle);
+        assertThat(attemptRepository.countBySubscriptionIdAndCycleExpirationDate(stale.getId(), cycle)).isZero();
+
+        // Redelivery of an already processed message is a no-op.
+        assertThat(batchConsumer.process(List.of(charge(decline, cycle, 1)))).containsExactly(Outcome.ACK);
+        assertThat(attemptRepository.countBySubscriptionIdAndCycleExpirationDate(decline.getId(), cycle)).isEqualTo(1);
+    }
+
+    @Test
+    void failedApplyShouldAckWithoutChargingAgainAndBeFlaggedAfterTheLease() {
+        LocalDate cycle = LocalDate.parse("2025-04-10");
+        List<SubscriptionResponse> subs = List.of(
+                subscribe("batch-apply-1@example.com", PaymentBehavior.ALWAYS_APPROVE),
+                subscribe("batch-apply-2@example.com", PaymentBehavior.ALWAYS_APPROVE),
+                subscribe("batch-apply-3@example.com", PaymentBehavior.ALWAYS_APPROVE));
+        UUID poison = subs.get(1).getId();
+        List<PaymentChargeRequested> batch = subs.stream().map(s -> charge(s, cycle, 1)).toList();
+
+        timeProvider.setNow(Instant.parse("2025-04-10T00:00:00Z"));
+        double chargesBefore = approvedCharges();
+
+        // The PENDING insert of the poison row passes; finishing its attempt violates the constraint.
+        jdbcTemplate.execute("ALTER TABLE subscription_renewal_attempts ADD CONSTRAINT it_poison_apply CHECK (subscription_id <> '"
+                + poison + "' OR result = 'PENDING')");
+        try {
+            assertThat(batchConsumer.process(batch)).containsExactly(Outcome.ACK, Outcome.ACK, Outcome.ACK);
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE subscription_renewal_attempts DROP CONSTRAINT it_poison_apply");
+        }
+        assertThat(approvedCharges() - chargesBefore).isEqualTo(3);
+
+        for (SubscriptionResponse sub : subs) {
+            boolean renewed = !sub.getId().equals(poison);
+            assertThat(subscriptionRepository.findById(sub.getId()).orElseThrow().getExpirationDate())
+                    .isEqualTo(renewed ? cycle.plusMonths(1) : cycle);
+        }
+        assertThat(attemptRepository.findBySubscriptionIdOrderByAttemptedAtDesc(poison))
+                .singleElement()
+                .extracting(SubscriptionRenewalAttemptEntity::getResult)
+                .isEqualTo(RenewalAttemptResult.PENDING);
+
+        // Redelivering the whole batch charges nobody again.
+        assertThat(batchConsumer.process(batch)).containsExactly(Outcome.ACK, Outcome.ACK, Outcome.ACK);
+        assertThat(approvedCharges() - chargesBefore).isEqualTo(3);
+
+        // Past the lease the pending attempt is flagged and its subscription held for review.
+        timeProvider.setNow(Instant.parse("2025-04-10T00:11:00Z"));
+        assertThat(reconciler.reconcile()).isEqualTo(1);
+        assertThat(attemptRepository.findBySubscriptionIdOrderByAttemptedAtDesc(poison))
+                .singleElement()
+                .extracting(SubscriptionRenewalAttemptEntity::getResult)
+                .isEqualTo(RenewalAttemptResult.UNKNOWN);
+        assertThat(subscriptionRepository.findById(poison).orElseThrow().getStatus()).isEqualTo(SubscriptionStatus.SUSPENSA);
+    }
+
+    private double approvedCharges() {
+        Counter counter = meterRegistry.find("payment_charge_total").tag("approved", "true").counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private SubscriptionResponse subscribe(String email, PaymentBehavior behavior) {
+        PaymentProfileRequest profile = new PaymentProfileRequest();
+        profile.setBehavior(behavior);
+
+        CreateUserRequest user = new CreateUserRequest();
+        user.setEmail(email);
+        user.setNome("Batch");
+        user.setPaymentProfile(profile);
+        UUID userId = userService.create(user).getId();
+
+        CreateSubscriptionRequest sub = new CreateSubscriptionRequest();
+        sub.setPlano(Plan.BASICO);
+        sub.setDataInicio(LocalDate.parse("2025-03-10"));
+        return subscriptionService.create(userId, sub);
+    }
+
+    private static PaymentChargeRequested charge(SubscriptionResponse s, LocalDate cycle, int attemptNumber) {
+        return new PaymentChargeRequested(
+                null, s.getId(), s.getUsuarioId(), cycle, attemptNumber, s.getPlano().getPriceCents(), Instant.now());
+    }
+}
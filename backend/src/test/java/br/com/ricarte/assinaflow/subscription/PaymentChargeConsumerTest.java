@@ -0,0 +1,178 @@
+package br.com.ricarte.assinaflow.subscription;
+
+import br.com.ricarte.assinaflow.common.time.TimeProvider;
+import br.com.ricarte.assinaflow.metrics.BillingMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentChargeConsumerTest {
+
+    private static final Instant NOW = Instant.parse("2025-04-10T00:05:00Z");
+    private static final LocalDate CYCLE = LocalDate.parse("2025-04-10");
+
+    @Mock
+    SubscriptionRepository subscriptionRepository;
+
+    @Mock
+    SubscriptionRenewalAttemptRepository attemptRepository;
+
+    @Mock
+    PaymentService paymentService;
+
+    @Mock
+    TimeProvider timeProvider;
+
+    @Mock
+    SubscriptionCache subscriptionCache;
+
+    @Mock
+    RenewalQueue renewalQueue;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final Map<UUID, SubscriptionRenewalAttemptEntity> attempts = new HashMap<>();
+
+    private PaymentChargeConsumer consumer;
+    private SubscriptionEntity subscription;
+
+    @BeforeEach
+    void setUp() {
+        BillingMetrics billingMetrics = new BillingMetrics(registry);
+        consumer = new PaymentChargeConsumer(subscriptionRepository, attemptRepository, paymentService, timeProvider,
+                subscriptionCache, new RenewalAttemptApplier(subscriptionCache, billingMetrics), renewalQueue,
+                billingMetrics, transactionManager);
+
+        subscription = new SubscriptionEntity();
+        subscription.setId(UUID.randomUUID());
+        subscription.setUserId(UUID.randomUUID());
+        subscription.setPlan(Plan.PREMIUM);
+        subscription.setStatus(SubscriptionStatus.ATIVA);
+        subscription.setAutoRenew(true);
+        subscription.setExpirationDate(CYCLE);
+        ReflectionTestUtils.setField(subscription, "version", 5L);
+
+        when(subscriptionRepository.findByIdForUpdate(subscription.getId())).thenReturn(Optional.of(subscription));
+        lenient().when(timeProvider.now()).thenReturn(NOW);
+        lenient().when(attemptRepository.save(any())).thenAnswer(inv -> {
+            SubscriptionRenewalAttemptEntity attempt = inv.getArgument(0);
+            if (attempt.getId() == null) {
+                attempt.setId(UUID.randomUUID());
+            }
+            attempts.put(attempt.getId(), attempt);
+            return attempt;
+        });
+        lenient().when(attemptRepository.findById(any()))
+                .thenAnswer(inv -> Optional.ofNullable(attempts.get(inv.<UUID>getArgument(0))));
+    }
+
+    @Test
+    void chargeShouldRunBetweenClaimAndApplyTransactions() {
+        when(paymentService.charge(subscription.getUserId(), Plan.PREMIUM, 3990)).thenAnswer(inv -> {
+            assertThat(attempts.values()).singleElement()
+                    .extracting(SubscriptionRenewalAttemptEntity::getResult).isEqualTo(RenewalAttemptResult.PENDING);
+            return PaymentResult.approved();
+        });
+
+        consumer.onMessage(message());
+
+        InOrder order = inOrder(transactionManager, paymentService, attemptRepository);
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(attemptRepository).save(any());
+        order.verify(transactionManager).commit(any());
+        order.verify(paymentService).charge(subscription.getUserId(), Plan.PREMIUM, 3990);
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(attemptRepository).save(any());
+        order.verify(transactionManager).commit(any());
+        assertThat(attempts.values()).singleElement()
+                .extracting(SubscriptionRenewalAttemptEntity::getResult).isEqualTo(RenewalAttemptResult.SUCCESS);
+        assertThat(subscription.getExpirationDate()).isEqualTo(CYCLE.plusMonths(1));
+        assertThat(subscription.getRenewalInFlightUntil()).isNull();
+    }
+
+    @Test
+    void approvedChargeShouldBeRecordedEvenWhenRowChangedDuringCharge() {
+        when(paymentService.charge(subscription.getUserId(), Plan.PREMIUM, 3990)).thenAnswer(inv -> {
+            // e.g. canceled by the user while the gateway was called
+            subscription.setStatus(SubscriptionStatus.CANCELAMENTO_AGENDADO);
+            ReflectionTestUtils.setField(subscription, "version", 6L);
+            return PaymentResult.approved();
+        });
+
+        consumer.onMessage(message());
+
+        assertThat(attempts.values()).singleElement()
+                .extracting(SubscriptionRenewalAttemptEntity::getResult).isEqualTo(RenewalAttemptResult.SUCCESS);
+        assertThat(subscription.getExpirationDate()).isEqualTo(CYCLE);
+        assertThat(subscription.getStatus()).isEqualTo(SubscriptionStatus.CANCELAMENTO_AGENDADO);
+        assertThat(subscription.getRenewalInFlightUntil()).isNull();
+        assertThat(registry.get("payment_charge_unapplied_total").tag("approved", "true").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void duplicateDeliveryShouldNotChargeWhileAttemptIsPending() {
+        SubscriptionRenewalAttemptEntity pending = new SubscriptionRenewalAttemptEntity();
+        pending.setResult(RenewalAttemptResult.PENDING);
+        when(attemptRepository.findBySubscriptionIdAndCycleExpirationDateAndAttemptNumber(subscription.getId(), CYCLE, 1))
+                .thenReturn(Optional.of(pending));
+        subscription.setRenewalInFlightUntil(NOW.plus(PaymentChargeConsumer.CHARGE_LEASE));
+
+        consumer.onMessage(message());
+
+        verifyNoInteractions(paymentService);
+        verify(attemptRepository, never()).save(any());
+        assertThat(subscription.getRenewalInFlightUntil()).isEqualTo(NOW.plus(PaymentChargeConsumer.CHARGE_LEASE));
+    }
+
+    @Test
+    void failedChargeShouldRemoveThePendingAttemptAndRequeue() {
+        when(paymentService.charge(subscription.getUserId(), Plan.PREMIUM, 3990))
+                .thenThrow(new PaymentThrottledException("DEFAULT", Duration.ofSeconds(1)));
+
+        assertThatThrownBy(() -> consumer.onMessage(message())).isInstanceOf(PaymentThrottledException.class);
+
+        UUID attemptId = attempts.keySet().iterator().next();
+        verify(attemptRepository).deleteById(attemptId);
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void ineligibleSubscriptionShouldNotBeCharged() {
+        subscription.setStatus(SubscriptionStatus.CANCELAMENTO_AGENDADO);
+        subscription.setRenewalInFlightUntil(NOW);
+
+        consumer.onMessage(message());
+
+        verifyNoInteractions(paymentService);
+        assertThat(subscription.getRenewalInFlightUntil()).isNull();
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    private PaymentChargeRequested message() {
+        return new PaymentChargeRequested(UUID.randomUUID(), subscription.getId(), subscription.getUserId(),
+                CYCLE, 1, 3990, NOW);
+    }
+}
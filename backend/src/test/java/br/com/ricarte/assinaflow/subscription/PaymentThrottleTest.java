@@ -0,0 +1,128 @@
+package br.com.ricarte.assinaflow.subscription;
+
+import br.com.ricarte.assinaflow.metrics.BillingMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PaymentThrottleTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final BillingMetrics billingMetrics = new BillingMetrics(registry);
+
+    @Test
+    void disabledThrottleShouldNeverBlock() {
+        PaymentRateLimiter exhausted = new PaymentRateLimiter() {
+            @Override
+            public long tryAcquire(String bucket, double permitsPerSecond, int burst) {
+                return Long.MAX_VALUE;
+            }
+
+            @Override
+            public double available(String bucket, double permitsPerSecond, int burst) {
+                return 0;
+            }
+        };
+        PaymentThrottle throttle = new PaymentThrottle(exhausted, billingMetrics, false, 1, 1, 1, 0, "");
+
+        for (int i = 0; i < 10; i++) {
+            throttle.acquire(Plan.BASICO).close();
+        }
+        assertThat(throttle.awaitTokens(10)).isEqualTo(10);
+        assertThat(registry.find("payment_throttle_wait").timer()).isNull();
+    }
+
+    @Test
+    void shouldThrowWhenBucketCannotRefillWithinMaxWait() {
+        PaymentThrottle throttle = new PaymentThrottle(new LocalPaymentRateLimiter(), billingMetrics,
+                true, 1, 1, 10, 50, "");
+
+        throttle.acquire(Plan.BASICO).close();
+
+        assertThatThrownBy(() -> throttle.acquire(Plan.BASICO))
+                .isInstanceOfSatisfying(PaymentThrottledException.class, e -> {
+                    assertThat(e.getBucket()).isEqualTo("default");
+                    assertThat(e.getRetryAfter()).isGreaterThan(Duration.ofMillis(500));
+                });
+        assertThat(registry.get("payment_throttle_wait").tag("throttled", "true").timer().count()).isEqualTo(1);
+        assertThat(registry.get("payment_throttle_wait").tag("throttled", "false").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCapChargesInFlight() {
+        PaymentThrottle throttle = new PaymentThrottle(new LocalPaymentRateLimiter(), billingMetrics,
+                true, 1000, 1000, 1, 50, "");
+
+        PaymentThrottle.Permit held = throttle.acquire(Plan.BASICO);
+        assertThatThrownBy(() -> throttle.acquire(Plan.BASICO)).isInstanceOf(PaymentThrottledException.class);
+
+        held.close();
+        throttle.acquire(Plan.BASICO).close();
+    }
+
+    @Test
+    void plansWithOwnRateShouldUseTheirOwnBucket() {
+        PaymentThrottle throttle = new PaymentThrottle(new LocalPaymentRateLimiter(), billingMetrics,
+                true, 1, 1, 10, 0, "premium=1");
+
+        assertThat(throttle.bucket(Plan.PREMIUM)).isEqualTo("PREMIUM");
+        assertThat(throttle.bucket(Plan.BASICO)).isEqualTo(PaymentThrottle.DEFAULT_BUCKET);
+
+        throttle.acquire(Plan.PREMIUM).close();
+        throttle.acquire(Plan.BASICO).close();
+        assertThatThrownBy(() -> throttle.acquire(Plan.PREMIUM)).isInstanceOf(PaymentThrottledException.class);
+    }
+
+    @Test
+    void tryAcquireShouldNotWait() {
+        PaymentThrottle throttle = new PaymentThrottle(new LocalPaymentRateLimiter(), billingMetrics,
+                true, 1, 1, 10, 5_000, "");
+
+        throttle.tryAcquire(Plan.BASICO).close();
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> throttle.tryAcquire(Plan.BASICO))
+                .isInstanceOfSatisfying(PaymentThrottledException.class,
+                        e -> assertThat(e.getRetryAfter()).isGreaterThan(Duration.ofMillis(500)));
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void awaitTokensShouldWaitWithoutTakingAndSizeTheClaim() {
+        PaymentThrottle throttle = new PaymentThrottle(new LocalPaymentRateLimiter(), billingMetrics,
+                true, 20, 5, 10, 1_000, "");
+
+        assertThat(throttle.awaitTokens(100)).isEqualTo(5);
+        assertThat(throttle.awaitTokens(3)).isEqualTo(3);
+        for (int i = 0; i < 5; i++) {
+            throttle.tryAcquire(Plan.BASICO).close();
+        }
+
+        // Empty bucket: waits about one refill (50 ms at 20/s), still without taking it.
+        long start = System.nanoTime();
+        assertThat(throttle.awaitTokens(100)).isEqualTo(1);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(40));
+        throttle.tryAcquire(Plan.BASICO).close();
+    }
+
+    @Test
+    void awaitTokensShouldGiveUpAfterMaxWait() {
+        PaymentThrottle throttle = new PaymentThrottle(new LocalPaymentRateLimiter(), billingMetrics,
+                true, 1, 1, 10, 50, "");
+        throttle.tryAcquire(Plan.BASICO).close();
+
+        assertThat(throttle.awaitTokens(10)).isZero();
+    }
+
+    @Test
+    void parsePlanRatesShouldRejectInvalidEntries() {
+        assertThat(PaymentThrottle.parsePlanRates(" PREMIUM = 20 , basico=100")).isEqualTo(Map.of("PREMIUM", 20.0, "BASICO", 100.0));
+        assertThatThrownBy(() -> PaymentThrottle.parsePlanRates("PREMIUM")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PaymentThrottle.parsePlanRates("PREMIUM=0")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,148 @@
+package br.com.ricarte.assinaflow.subscription;
+
+import br.com.ricarte.assinaflow.AssinaFlowApplication;
+import br.com.ricarte.assinaflow.subscription.dto.CreateSubscriptionRequest;
+import br.com.ricarte.assinaflow.subscription.dto.SubscriptionResponse;
+import br.com.ricarte.assinaflow.testutil.MutableTimeProvider;
+import br.com.ricarte.assinaflow.testutil.TestTimeProviderConfig;
+import br.com.ricarte.assinaflow.user.PaymentBehavior;
+import br.com.ricarte.assinaflow.user.UserService;
+import br.com.ricarte.assinaflow.user.dto.CreateUserRequest;
+import br.com.ricarte.assinaflow.user.dto.PaymentProfileRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Testcontainers
+@SpringBootTest(classes = {AssinaFlowApplication.class, TestTimeProviderConfig.class})
+@TestPropertySource(properties = {
+        "app.scheduler.enabled=false",
+        "app.payments.async.enabled=true",
+        "spring.cache.type=simple",
+        // Broker is never reached: the test calls the consumer directly.
+        "spring.rabbitmq.host=127.0.0.1",
+        "spring.rabbitmq.port=1",
+        "spring.rabbitmq.connection-timeout=500ms"
+})
+class PendingAttemptReconcilerIntegrationTest {
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("subscriptions")
+            .withUsername("subscriptions")
+            .withPassword("subscriptions");
+
+    @DynamicPropertySource
+    static void registerProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    PaymentChargeConsumer consumer;
+
+    @Autowired
+    PendingAttemptReconciler reconciler;
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    SubscriptionService subscriptionService;
+
+    @Autowired
+    SubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    SubscriptionRenewalAttemptRepository attemptRepository;
+
+    @Autowired
+    MutableTimeProvider timeProvider;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    void attemptLeftPendingByFailedApplyShouldBeFlaggedAfterTheLease() {
+        LocalDate cycle = LocalDate.parse("2025-04-10");
+        SubscriptionResponse sub = subscribe("reconcile@example.com");
+        PaymentChargeRequested msg = new PaymentChargeRequested(
+                null, sub.getId(), sub.getUsuarioId(), cycle, 1, sub.getPlano().getPriceCents(), Instant.now());
+
+        timeProvider.setNow(Instant.parse("2025-04-10T00:00:00Z"));
+
+        // The PENDING insert passes; finishing the attempt violates the constraint, so apply fails.
+        jdbcTemplate.execute("ALTER TABLE subscription_renewal_attempts ADD CONSTRAINT it_apply_fails CHECK (subscription_id <> '"
+                + sub.getId() + "' OR result <> 'SUCCESS')");
+        try {
+            consumer.onMessage(msg);
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE subscription_renewal_attempts DROP CONSTRAINT it_apply_fails");
+        }
+
+        assertThat(attempt(sub.getId()).getResult()).isEqualTo(RenewalAttemptResult.PENDING);
+        SubscriptionEntity stuck = subscriptionRepository.findById(sub.getId()).orElseThrow();
+        assertThat(stuck.getExpirationDate()).isEqualTo(cycle);
+        assertThat(stuck.getRenewalInFlightUntil()).isNotNull();
+
+        // Within the lease the attempt may still be applied: left alone.
+        assertThat(reconciler.reconcile()).isZero();
+
+        timeProvider.setNow(Instant.parse("2025-04-10T00:11:00Z"));
+        assertThat(reconciler.reconcile()).isEqualTo(1);
+
+        SubscriptionRenewalAttemptEntity flagged = attempt(sub.getId());
+        assertThat(flagged.getResult()).isEqualTo(RenewalAttemptResult.UNKNOWN);
+        assertThat(flagged.getErrorCode()).isEqualTo(PendingAttemptReconciler.UNKNOWN_ERROR_CODE);
+
+        SubscriptionEntity suspended = subscriptionRepository.findById(sub.getId()).orElseThrow();
+        assertThat(suspended.getStatus()).isEqualTo(SubscriptionStatus.SUSPENSA);
+        assertThat(suspended.isAutoRenew()).isFalse();
+        assertThat(suspended.getRenewalInFlightUntil()).isNull();
+
+        assertThat(meterRegistry.get("renewal_attempt_unresolved_total").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("renewal_attempts_pending_stale").gauge().value()).isZero();
+
+        // A redelivery neither charges nor touches the flagged attempt.
+        consumer.onMessage(msg);
+        assertThat(attempt(sub.getId()).getResult()).isEqualTo(RenewalAttemptResult.UNKNOWN);
+    }
+
+    private SubscriptionRenewalAttemptEntity attempt(UUID subscriptionId) {
+        return attemptRepository.findBySubscriptionIdOrderByAttemptedAtDesc(subscriptionId).get(0);
+    }
+
+    private SubscriptionResponse subscribe(String email) {
+        PaymentProfileRequest profile = new PaymentProfileRequest();
+        profile.setBehavior(PaymentBehavior.ALWAYS_APPROVE);
+
+        CreateUserRequest user = new CreateUserRequest();
+        user.setEmail(email);
+        user.setNome("Reconcile");
+        user.setPaymentProfile(profile);
+        UUID userId = userService.create(user).getId();
+
+        CreateSubscriptionRequest sub = new CreateSubscriptionRequest();
+        sub.setPlano(Plan.BASICO);
+        sub.setDataInicio(LocalDate.parse("2025-03-10"));
+        return subscriptionService.create(userId, sub);
+    }
+}
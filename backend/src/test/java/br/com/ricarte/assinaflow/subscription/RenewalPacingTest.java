@@ -0,0 +1,57 @@
+package br.com.ricarte.assinaflow.subscription;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RenewalPacingTest {
+
+    @Test
+    void offsetShouldBeZeroWhenPacingIsDisabled() {
+        RenewalPacing pacing = new RenewalPacing(false, 60, 0);
+
+        assertThat(pacing.offset(UUID.randomUUID())).isZero();
+        assertThat(pacing.window()).isEqualTo(1);
+    }
+
+    @Test
+    void offsetShouldComeFromLowBitsOfIdAndStayInsideWindow() {
+        RenewalPacing pacing = new RenewalPacing(true, 60, 0);
+
+        // 0x80000001 = 2147483649 -> 2147483649 % 3600 = 849
+        assertThat(pacing.offset(UUID.fromString("2f1c0b7a-1111-4222-8333-9abc80000001")))
+                .isEqualTo(Duration.ofSeconds(849));
+        for (int i = 0; i < 1000; i++) {
+            UUID id = UUID.randomUUID();
+            assertThat(pacing.offset(id)).isEqualTo(pacing.offset(id)).isBetween(Duration.ZERO, Duration.ofSeconds(3599));
+        }
+    }
+
+    @Test
+    void acquireShouldSpaceReleasesEvenly() {
+        RenewalPacing pacing = new RenewalPacing(false, 60, 200);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 21; i++) {
+            assertThat(pacing.acquire(1)).isTrue();
+        }
+        // First release is immediate, the next 20 are 5 ms apart.
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(95));
+    }
+
+    @Test
+    void releasedPermitsShouldNotDelayTheNextAcquire() {
+        RenewalPacing pacing = new RenewalPacing(false, 60, 10);
+
+        // An empty claim of 50 rows would otherwise block the next release for 5 s.
+        assertThat(pacing.acquire(50)).isTrue();
+        pacing.release(50);
+
+        long start = System.nanoTime();
+        assertThat(pacing.acquire(1)).isTrue();
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(500));
+    }
+}
@@ -0,0 +1,52 @@
+package br.com.ricarte.assinaflow.subscription;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RenewalQueueTest {
+
+    @Test
+    void dueAtShouldBeStartOfExpirationDayForNewSubscription() {
+        SubscriptionEntity s = active();
+
+        assertThat(RenewalQueue.dueAt(s)).isEqualTo(Instant.parse("2025-04-10T00:00:00Z"));
+    }
+
+    @Test
+    void dueAtShouldFollowRetryBackoffAndInFlightCharge() {
+        SubscriptionEntity s = active();
+        s.setRenewalFailures(1);
+        s.setNextRenewalAttemptAt(Instant.parse("2025-04-10T00:15:00Z"));
+        assertThat(RenewalQueue.dueAt(s)).isEqualTo(Instant.parse("2025-04-10T00:15:00Z"));
+
+        s.setRenewalInFlightUntil(Instant.parse("2025-04-10T00:25:00Z"));
+        assertThat(RenewalQueue.dueAt(s)).isEqualTo(Instant.parse("2025-04-10T00:25:00Z"));
+    }
+
+    @Test
+    void dueAtShouldBeNullWhenSubscriptionCanNoLongerRenew() {
+        SubscriptionEntity cancelled = active();
+        cancelled.setStatus(SubscriptionStatus.CANCELAMENTO_AGENDADO);
+        cancelled.setAutoRenew(false);
+
+        SubscriptionEntity exhausted = active();
+        exhausted.setRenewalFailures(RenewalAttemptApplier.MAX_ATTEMPTS);
+
+        assertThat(RenewalQueue.dueAt(cancelled)).isNull();
+        assertThat(RenewalQueue.dueAt(exhausted)).isNull();
+    }
+
+    private static SubscriptionEntity active() {
+        SubscriptionEntity s = new SubscriptionEntity();
+        s.setPlan(Plan.BASICO);
+        s.setStartDate(LocalDate.parse("2025-03-10"));
+        s.setExpirationDate(LocalDate.parse("2025-04-10"));
+        s.setStatus(SubscriptionStatus.ATIVA);
+        s.setAutoRenew(true);
+        return s;
+    }
+}
@@ -0,0 +1,74 @@
+package br.com.ricarte.assinaflow.subscription;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RenewalWorkerPoolTest {
+
+    @Mock
+    RenewalService renewalService;
+
+    RenewalWorkerPool pool;
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void drainShouldKeepClaimingUntilDueSetIsEmpty() {
+        when(renewalService.processDueRenewals(10)).thenReturn(10, 10, 3, 0);
+        pool = new RenewalWorkerPool(renewalService, 1, 10, 1, 1, 2, false);
+
+        int processed = pool.drain().join();
+
+        assertThat(processed).isEqualTo(23);
+        // 3 batches with work + 1 empty poll + 2 idle retries
+        verify(renewalService, times(6)).processDueRenewals(10);
+    }
+
+    @Test
+    void drainShouldNotStartSecondRunWhileFirstIsInProgress() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(renewalService.processDueRenewals(5)).thenAnswer(inv -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return 0;
+        });
+        pool = new RenewalWorkerPool(renewalService, 1, 5, 0, 0, 0, false);
+
+        var first = pool.drain();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(pool.drain().join()).isZero();
+        release.countDown();
+        assertThat(first.join()).isZero();
+        verify(renewalService, times(1)).processDueRenewals(5);
+    }
+
+    @Test
+    void slicedDrainShouldGiveEachWorkerItsOwnSlice() {
+        when(renewalService.processDueRenewals(eq(10), anyInt(), eq(3))).thenReturn(0);
+        pool = new RenewalWorkerPool(renewalService, 3, 10, 0, 0, 0, true);
+
+        assertThat(pool.drain().join()).isZero();
+
+        verify(renewalService).processDueRenewals(10, 0, 3);
+        verify(renewalService).processDueRenewals(10, 1, 3);
+        verify(renewalService).processDueRenewals(10, 2, 3);
+        verify(renewalService, never()).processDueRenewals(10);
+    }
+}
@@ -0,0 +1,340 @@
+package br.com.ricarte.assinaflow.subscription;
+
+import br.com.ricarte.assinaflow.config.CacheMultiGet;
+import br.com.ricarte.assinaflow.subscription.dto.SubscriptionResponse;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SubscriptionCacheTest {
+
+    private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(SubscriptionCache.ACTIVE_CACHE);
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-03-10T12:00:00Z"));
+    private final SubscriptionCache subscriptionCache =
+            new SubscriptionCache(cacheManager, new CacheMultiGet(null), clock, Duration.ofSeconds(60), 10_000, 1, 5_000);
+
+    @AfterEach
+    void tearDown() {
+        subscriptionCache.shutdown();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void refreshShouldWriteResponseOnlyAfterCommit() {
+        SubscriptionEntity s = subscription(SubscriptionStatus.ATIVA);
+
+        TransactionSynchronizationManager.initSynchronization();
+        subscriptionCache.refreshActive(s);
+        assertThat(cached(s.getUserId())).isNull();
+
+        // Changes made later in the same transaction are part of the cached value
+        s.setExpirationDate(LocalDate.parse("2025-05-10"));
+        commit();
+
+        assertThat(cached(s.getUserId()).getDataExpiracao()).isEqualTo(LocalDate.parse("2025-05-10"));
+    }
+
+    @Test
+    void lastChangeInTransactionShouldWin() {
+        SubscriptionEntity s = subscription(SubscriptionStatus.ATIVA);
+        cacheManager.getCache(SubscriptionCache.ACTIVE_CACHE).put(s.getUserId(), new ActiveSubscriptionEntry(SubscriptionService.toResponse(s), clock.millis()));
+
+        TransactionSynchronizationManager.initSynchronization();
+        subscriptionCache.refreshActive(s);
+        subscriptionCache.evictActive(s.getUserId());
+        commit();
+
+        assertThat(cached(s.getUserId())).isNull();
+    }
+
+    @Test
+    void terminalStatusShouldEvict() {
+        SubscriptionEntity s = subscription(SubscriptionStatus.ATIVA);
+        subscriptionCache.refreshActive(s);
+        assertThat(cached(s.getUserId())).isNotNull();
+
+        s.setStatus(SubscriptionStatus.SUSPENSA);
+        subscriptionCache.refreshActive(s);
+
+        assertThat(cached(s.getUserId())).isNull();
+    }
+
+    @Test
+    void rollbackShouldLeaveCacheUntouched() {
+        SubscriptionEntity s = subscription(SubscriptionStatus.ATIVA);
+
+        TransactionSynchronizationManager.initSynchronization();
+        subscriptionCache.refreshActive(s);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertThat(cached(s.getUserId())).isNull();
+    }
+
+    @Test
+    void concurrentMissesShouldShareOneLoad() throws Exception {
+        SubscriptionEntity s = subscription(SubscriptionStatus.ATIVA);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<Optional<SubscriptionResponse>> loader = () -> {
+            loads.incrementAndGet();
+            await(release);
+            return Optional.of(SubscriptionService.toResponse(s));
+        };
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Optional<SubscriptionResponse>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> subscriptionCache.getActive(s.getUserId(), loader)));
+            }
+            Thread.sleep(200);
+            release.countDown();
+
+            for (Future<Optional<SubscriptionResponse>> r : results) {
+                assertThat(r.get(5, TimeUnit.SECONDS).orElseThrow().getUsuarioId()).isEqualTo(s.getUserId());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(loads).hasValue(1);
+        assertThat(cached(s.getUserId())).isNotNull();
+    }
+
+    @Test
+    void failedLoadShouldReachCallerAndCacheNothing() {
+        UUID userId = UUID.randomUUID();
+
+        assertThatThrownBy(() -> subscriptionCache.getActive(userId, () -> {
+            throw new IllegalStateException("db down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(cacheManager.getCache(SubscriptionCache.ACTIVE_CACHE).get(userId)).isNull();
+    }
+
+    @Test
+    void absentShouldBeCachedForNegativeTtlOnly() {
+        UUID userId = UUID.randomUUID();
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<Optional<SubscriptionResponse>> loader = () -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        };
+
+        assertThat(subscriptionCache.getActive(userId, loader)).isEmpty();
+        clock.advance(Duration.ofSeconds(4));
+        assertThat(subscriptionCache.getActive(userId, loader)).isEmpty();
+        assertThat(loads).hasValue(1);
+
+        clock.advance(Duration.ofSeconds(1));
+        assertThat(subscriptionCache.getActive(userId, loader)).isEmpty();
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void createShouldReplaceAbsentEntry() {
+        SubscriptionEntity s = subscription(SubscriptionStatus.ATIVA);
+        assertThat(subscriptionCache.getActive(s.getUserId(), Optional::empty)).isEmpty();
+
+        TransactionSynchronizationManager.initSynchronization();
+        subscriptionCache.refreshActive(s);
+        commit();
+
+        assertThat(subscriptionCache.getActive(s.getUserId(), Optional::empty)).isPresent();
+    }
+
+    @Test
+    void hitNearTtlShouldRefreshInBackground() {
+        SubscriptionEntity s = subscription(SubscriptionStatus.ATIVA);
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<Optional<SubscriptionResponse>> loader = () -> {
+            loads.incrementAndGet();
+            return Optional.of(SubscriptionService.toResponse(s));
+        };
+
+        subscriptionCache.getActive(s.getUserId(), loader);
+        clock.advance(Duration.ofSeconds(45));
+        subscriptionCache.getActive(s.getUserId(), loader);
+        assertThat(loads).hasValue(1);
+
+        // 50s into a 60s TTL: inside the 10s window
+        clock.advance(Duration.ofSeconds(5));
+        s.setExpirationDate(LocalDate.parse("2025-05-10"));
+        assertThat(subscriptionCache.getActive(s.getUserId(), loader).orElseThrow().getDataExpiracao()).isEqualTo(LocalDate.parse("2025-04-10"));
+
+        Awaitility.await().atMost(5, TimeUnit.SECONDS).untilAsserted(() ->
+                assertThat(cached(s.getUserId()).getDataExpiracao()).isEqualTo(LocalDate.parse("2025-05-10")));
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void loadRacingCommitShouldNotOverwriteNewerValue() {
+        SubscriptionEntity s = subscription(SubscriptionStatus.ATIVA);
+        SubscriptionResponse stale = SubscriptionService.toResponse(s);
+
+        subscriptionCache.getActive(s.getUserId(), () -> {
+            // A write commits while this read is in progress
+            s.setExpirationDate(LocalDate.parse("2025-05-10"));
+            subscriptionCache.refreshActive(s);
+            return Optional.of(stale);
+        });
+
+        assertThat(cached(s.getUserId()).getDataExpiracao()).isEqualTo(LocalDate.parse("2025-05-10"));
+    }
+
+    @Test
+    void commitBetweenGenerationCheckAndPutShouldNotLeaveStaleValue() {
+        SubscriptionEntity s = subscription(SubscriptionStatus.ATIVA);
+        SubscriptionResponse stale = SubscriptionService.toResponse(s);
+
+        // The write commits right after the load passed its generation check, before its put.
+        AtomicReference<Runnable> beforePut = new AtomicReference<>();
+        ConcurrentMapCacheManager racingManager = new ConcurrentMapCacheManager(SubscriptionCache.ACTIVE_CACHE) {
+            @Override
+            protected Cache createConcurrentMapCache(String name) {
+                return new ConcurrentMapCache(name) {
+                    @Override
+                    public void put(Object key, Object value) {
+                        Runnable hook = beforePut.getAndSet(null);
+                        if (hook != null) {
+                            hook.run();
+                        }
+                        super.put(key, value);
+                    }
+                };
+            }
+        };
+        SubscriptionCache racingCache =
+                new SubscriptionCache(racingManager, new CacheMultiGet(null), clock, null, 0, 1, 5_000);
+        beforePut.set(() -> {
+            s.setExpirationDate(LocalDate.parse("2025-05-10"));
+            racingCache.refreshActive(s);
+        });
+
+        racingCache.getActive(s.getUserId(), () -> Optional.of(stale));
+
+        ActiveSubscriptionEntry entry = racingManager.getCache(SubscriptionCache.ACTIVE_CACHE)
+                .get(s.getUserId(), ActiveSubscriptionEntry.class);
+        assertThat(entry).isNull();
+        assertThat(racingCache.getActive(s.getUserId(), () -> Optional.of(SubscriptionService.toResponse(s)))
+                .orElseThrow().getDataExpiracao()).isEqualTo(LocalDate.parse("2025-05-10"));
+    }
+
+    @Test
+    void bulkLookupShouldLoadOnlyMissesInOneCall() {
+        SubscriptionEntity cachedSub = subscription(SubscriptionStatus.ATIVA);
+        SubscriptionEntity loadedSub = subscription(SubscriptionStatus.ATIVA);
+        UUID none = UUID.randomUUID();
+        subscriptionCache.refreshActive(cachedSub);
+
+        List<Collection<UUID>> calls = new ArrayList<>();
+        Function<Collection<UUID>, Map<UUID, SubscriptionResponse>> loader = missing -> {
+            calls.add(List.copyOf(missing));
+            return Map.of(loadedSub.getUserId(), SubscriptionService.toResponse(loadedSub));
+        };
+
+        List<UUID> ids = List.of(none, cachedSub.getUserId(), loadedSub.getUserId());
+        Map<UUID, SubscriptionResponse> result = subscriptionCache.getActiveAll(ids, loader);
+
+        assertThat(result.keySet()).containsExactlyElementsOf(ids);
+        assertThat(result.get(none)).isNull();
+        assertThat(result.get(cachedSub.getUserId()).getUsuarioId()).isEqualTo(cachedSub.getUserId());
+        assertThat(result.get(loadedSub.getUserId()).getUsuarioId()).isEqualTo(loadedSub.getUserId());
+        assertThat(calls).containsExactly(List.of(none, loadedSub.getUserId()));
+
+        // Everything, including the absent user, is now served from the cache
+        subscriptionCache.getActiveAll(ids, loader);
+        assertThat(calls).hasSize(1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void commit() {
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private SubscriptionResponse cached(UUID userId) {
+        ActiveSubscriptionEntry entry = cacheManager.getCache(SubscriptionCache.ACTIVE_CACHE).get(userId, ActiveSubscriptionEntry.class);
+        return entry == null ? null : entry.getResponse();
+    }
+
+    private static SubscriptionEntity subscription(SubscriptionStatus status) {
+        SubscriptionEntity s = new SubscriptionEntity();
+        s.setUserId(UUID.randomUUID());
+        s.setPlan(Plan.BASICO);
+        s.setStartDate(LocalDate.parse("2025-03-10"));
+        s.setExpirationDate(LocalDate.parse("2025-04-10"));
+        s.setStatus(status);
+        s.setAutoRenew(true);
+        return s;
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private volatile Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration d) {
+            now = now.plus(d);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -38,6 +38,9 @@ class SubscriptionServiceTest {
     @Mock
     SubscriptionCache subscriptionCache;
 
+    @Mock
+    RenewalQueue renewalQueue;
+
     @InjectMocks
     SubscriptionService subscriptionService;
 
@@ -108,5 +111,16 @@ class SubscriptionServiceTest {
         var resp = subscriptionService.cancel(userId);
         assertThat(resp.getStatus()).isEqualTo(SubscriptionStatus.CANCELAMENTO_AGENDADO);
         assertThat(resp.isAutoRenew()).isFalse();
+        verify(renewalQueue).schedule(s);
+    }
+
+    @Test
+    void getActiveShouldReturnNotFoundWithoutStackTrace() {
+        UUID userId = UUID.randomUUID();
+        when(subscriptionCache.getActive(eq(userId), any())).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> subscriptionService.getActive(userId))
+                .isInstanceOf(NotFoundException.class)
+                .satisfies(e -> assertThat(e.getStackTrace()).isEmpty());
     }
 }